@@ -0,0 +1,81 @@
+package com.jefferson.books_jdbc.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Bloom filter over long keys: k bit positions per key from double hashing a 64-bit mix, in a power-of-two
+//bit array. Adds are lock-free, so it can be filled while it is being read.
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitMask;
+    private final int hashes;
+
+    private BloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray((int) (bits >>> 6));
+        this.bitMask = bits - 1;
+        this.hashes = hashes;
+    }
+
+    //Sized with the usual m = -n ln p / (ln 2)^2 and k = m / n ln 2
+    static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+
+        long n = Math.max(1, expectedInsertions);
+        double optimalBits = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long bits = Math.max(64, Long.highestOneBit((long) Math.ceil(optimalBits) * 2 - 1));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+
+        return new BloomFilter(bits, hashes);
+    }
+
+    void put(long key) {
+
+        long hash = mix(key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    boolean mightContain(long key) {
+
+        long hash = mix(key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitMask + 1;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    //(1 - e^(-kn/m))^k for n inserted keys
+    double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) hashes * insertions / bitCount()), hashes);
+    }
+
+    //Murmur3 finalizer; sequential ids would otherwise land on neighbouring bits
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93fe53e4a63L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
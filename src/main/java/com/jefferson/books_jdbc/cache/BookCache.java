@@ -0,0 +1,184 @@
+package com.jefferson.books_jdbc.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.event.BooksFlushedEvent;
+import com.jefferson.books_jdbc.repository.BookField;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+//Read-through cache of mapped books, so hits skip both the query and the entity-to-dto mapping.
+//Concurrent misses for one id share a single load, whether or not caching is enabled.
+@Component
+public class BookCache implements MeterBinder {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final boolean enabled;
+    private final Cache<Long, BookDto> cache;
+    //Invalidations per stripe of ids; a load only caches its row if its stripe did not move while it ran
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final SingleFlight<Long, BookDto> bookLoads = new SingleFlight<>();
+    private final SingleFlight<ProjectionKey, BookDto> projectionLoads = new SingleFlight<>();
+
+    @Autowired
+    public BookCache(@Value("${books.cache.enabled:true}") boolean enabled,
+                     @Value("${books.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${books.cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public BookDto get(Long id, Function<Long, BookDto> loader) {
+
+        if (!enabled) {
+            return bookLoads.load(id, loader);
+        }
+
+        BookDto cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        // The query runs outside the map, so a slow load never holds a lock that writers and invalidates need
+        return bookLoads.load(id, key -> {
+            long generation = generation(key);
+            BookDto loaded = loader.apply(key);
+            install(loaded, generation);
+            return loaded;
+        });
+    }
+
+    //Caches a row read after generation was taken. An invalidate that lands before the check keeps it out; one
+    //that lands after the put removes it itself, and one in between is caught by the second check.
+    private void install(BookDto bookDto, long generation) {
+
+        if (generation(bookDto.id()) != generation) {
+            return;
+        }
+
+        cache.asMap().putIfAbsent(bookDto.id(), bookDto);
+        if (generation(bookDto.id()) != generation) {
+            cache.asMap().remove(bookDto.id(), bookDto);
+        }
+    }
+
+    private long generation(Long id) {
+        return generations.get(Long.hashCode(id) & (GENERATION_STRIPES - 1));
+    }
+
+    //Projections are not cached, but concurrent misses for the same id and fields still share one query
+    public BookDto getProjection(Long id, Set<BookField> fields, Function<Long, BookDto> loader) {
+
+        return projectionLoads.load(new ProjectionKey(id, fields), key -> loader.apply(key.id()));
+    }
+
+    public BookDto getIfPresent(Long id) {
+
+        return enabled ? cache.getIfPresent(id) : null;
+    }
+
+    public Map<Long, BookDto> getAllPresent(Iterable<Long> ids) {
+
+        if (!enabled) {
+            return Map.of();
+        }
+
+        return cache.getAllPresent(ids);
+    }
+
+    //Reads ids the cache does not hold in one call, and caches each returned row unless its id was invalidated
+    //while the call ran
+    public List<BookDto> loadAll(List<Long> ids, Function<List<Long>, List<BookDto>> loader) {
+
+        if (!enabled) {
+            return loader.apply(ids);
+        }
+
+        Map<Long, Long> generationsById = new HashMap<>();
+        ids.forEach(id -> generationsById.put(id, generation(id)));
+
+        List<BookDto> loaded = loader.apply(ids);
+        loaded.forEach(bookDto -> install(bookDto, generationsById.get(bookDto.id())));
+
+        return loaded;
+    }
+
+    //Reads that start after this never join a load that may have seen the old row, and loads still running
+    //do not cache what they read
+    public void invalidate(Long id) {
+
+        bookLoads.forget(id);
+        if (enabled) {
+            generations.incrementAndGet(Long.hashCode(id) & (GENERATION_STRIPES - 1));
+            cache.invalidate(id);
+        }
+        if (projectionLoads.inFlight() > 0) {
+            projectionLoads.forgetIf(key -> key.id().equals(id));
+        }
+    }
+
+    //Write-behind flushes bump versions behind the service's back
+    @EventListener
+    public void onBooksFlushed(BooksFlushedEvent event) {
+        event.bookIds().forEach(this::invalidate);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    //Hit, miss and eviction counters since startup
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    //Reads that joined another caller's in-flight load instead of querying
+    public long coalescedLoads() {
+        return bookLoads.coalesced() + projectionLoads.coalesced();
+    }
+
+    //Publishes the same counters as cache.gets{result=hit|miss} and cache.evictions{cache=books},
+    //plus books.cache.coalesced{load=book|projection}
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+        FunctionCounter.builder("books.cache.coalesced", bookLoads, SingleFlight::coalesced)
+                .tag("load", "book")
+                .register(meterRegistry);
+        FunctionCounter.builder("books.cache.coalesced", projectionLoads, SingleFlight::coalesced)
+                .tag("load", "projection")
+                .register(meterRegistry);
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private record ProjectionKey(Long id, Set<BookField> fields) {
+    }
+}
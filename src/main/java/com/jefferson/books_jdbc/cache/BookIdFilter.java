@@ -0,0 +1,235 @@
+package com.jefferson.books_jdbc.cache;
+
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Negative cache for book ids: a Bloom filter over every stored id, so a lookup of an id that was never created
+//is answered without a query. Creates are added from BookChangedEvent; deleted ids stay in the filter as false
+//positives until the next periodic rebuild. Until the first build finishes every id passes through.
+//Ids written by another instance are only seen after a rebuild, so this is for deployments with a single writer.
+@Slf4j
+@Component
+public class BookIdFilter implements MeterBinder {
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final ScheduledExecutorService rebuilder;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final AtomicLong insertions = new AtomicLong();
+
+    //Ids are collected before the filter is sized, so it can be sized for the rows that actually exist
+    private static final class IdBuffer {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long id) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = id;
+        }
+    }
+
+    //Guards the filter swap against concurrent creates; rebuilds themselves are serialized on this
+    private final Object lock = new Object();
+    private volatile BloomFilter filter;
+    private IdBuffer createdDuringRebuild;
+
+    @Autowired
+    public BookIdFilter(BookRepository bookRepository,
+                        @Value("${books.bloom.enabled:true}") boolean enabled,
+                        @Value("${books.bloom.expected-insertions:100000}") long expectedInsertions,
+                        @Value("${books.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                        @Value("${books.bloom.rebuild-interval:1h}") Duration rebuildInterval) {
+
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Book id filter: expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Book id filter: false positive rate must be between 0 and 1");
+        }
+
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-id-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //The first build runs on startup; later ones every rebuild-interval (zero turns them off)
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+
+        if (!enabled) {
+            return;
+        }
+
+        rebuilder.execute(this::rebuildQuietly);
+        if (rebuildInterval.isPositive()) {
+            rebuilder.scheduleWithFixedDelay(this::rebuildQuietly,
+                    rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+
+        if (!enabled || event.changeType() != BookChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+
+        synchronized (lock) {
+            BloomFilter current = filter;
+            if (current != null) {
+                current.put(event.bookId());
+                insertions.incrementAndGet();
+            }
+            if (createdDuringRebuild != null) {
+                createdDuringRebuild.add(event.bookId());
+            }
+        }
+    }
+
+    //False means the book certainly does not exist; true means it may, and the caller has to look
+    public boolean mightExist(long id) {
+
+        BloomFilter current = filter;
+        if (current == null) {
+            return true;
+        }
+
+        if (current.mightContain(id)) {
+            passed.increment();
+            return true;
+        }
+
+        rejected.increment();
+        return false;
+    }
+
+    //Called when an id the filter let through turned out not to exist
+    public void recordFalsePositive() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    //Streams every id into a filter sized for twice the current rows, so creates until the next rebuild keep
+    //the false positive rate near its target, then swaps it in
+    public synchronized long rebuild() {
+
+        long start = System.nanoTime();
+
+        synchronized (lock) {
+            createdDuringRebuild = new IdBuffer();
+        }
+
+        IdBuffer ids = new IdBuffer();
+        try {
+            bookRepository.streamBooks(book -> ids.add(book.getId()));
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                createdDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        int count = ids.size;
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedInsertions, 2L * count), falsePositiveRate);
+        for (int i = 0; i < count; i++) {
+            rebuilt.put(ids.values[i]);
+        }
+
+        synchronized (lock) {
+            // Books created while the table was streamed may have been missed by the stream
+            for (int i = 0; i < createdDuringRebuild.size; i++) {
+                rebuilt.put(createdDuringRebuild.values[i]);
+            }
+            insertions.set(count + createdDuringRebuild.size);
+            createdDuringRebuild = null;
+            filter = rebuilt;
+        }
+
+        log.info("Book id filter built over {} ids in {} ms ({} bits, {} hashes)", count,
+                (System.nanoTime() - start) / 1_000_000, rebuilt.bitCount(), rebuilt.hashCount());
+
+        return count;
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Book id filter rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    //Share of lookups for absent ids that still went to the database
+    public double observedFalsePositiveRate() {
+        double misses = falsePositives.sum() + rejected.sum();
+        return misses == 0 ? 0 : falsePositives.sum() / misses;
+    }
+
+    public double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate(insertions.get());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("books.bloom.lookups", rejected, LongAdder::sum)
+                .tag("result", "rejected")
+                .description("Lookups answered as not found without a query")
+                .register(meterRegistry);
+        FunctionCounter.builder("books.bloom.lookups", passed, LongAdder::sum)
+                .tag("result", "passed")
+                .register(meterRegistry);
+        FunctionCounter.builder("books.bloom.false.positives", falsePositives, LongAdder::sum)
+                .description("Lookups let through for ids that did not exist")
+                .register(meterRegistry);
+        Gauge.builder("books.bloom.false.positive.rate", this, BookIdFilter::observedFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("books.bloom.expected.false.positive.rate", this, BookIdFilter::expectedFalsePositiveRate)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package com.jefferson.books_jdbc.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+//CBOR and Smile encodings of the same Jackson model, for internal clients that send Accept or Content-Type
+//application/cbor or application/x-jackson-smile. Both mappers come from the application's builder, so they
+//share its modules and features with the JSON one. Boot places these after the JSON converter, so a request
+//without a binary Accept header still gets JSON.
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatConfig {
+
+    // The builder bean is a prototype, so each converter configures its own copy
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,52 +1,313 @@
 package com.jefferson.books_jdbc.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookImportSummary;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
 import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.importer.BookImportFormat;
+import com.jefferson.books_jdbc.repository.BookField;
+import com.jefferson.books_jdbc.service.BookAsyncService;
+import com.jefferson.books_jdbc.service.BookImportService;
 import com.jefferson.books_jdbc.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping(path = "/api/v1/book")
 public class BookController {
 
+    static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    // In the order the converters are registered, so ties in Accept resolve the way Spring MVC resolves them
+    private static final List<MediaType> BOOK_ENCODINGS = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, MediaType.valueOf("application/x-jackson-smile"));
+
     private final BookService bookService;
+    private final BookAsyncService bookAsyncService;
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper projectionMapper;
+    private final ObjectWriter ndjsonWriter;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private interface ProjectedBookMixIn {
+    }
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService,
+                          BookAsyncService bookAsyncService,
+                          BookImportService bookImportService,
+                          ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookAsyncService = bookAsyncService;
+        this.bookImportService = bookImportService;
+        this.objectMapper = objectMapper;
+        this.projectionMapper = objectMapper.copy().addMixIn(BookDto.class, ProjectedBookMixIn.class);
+        this.ndjsonWriter = objectMapper.writerFor(BookDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    // Database-bound endpoints return futures from the JDBC executor so servlet threads are released during I/O
     @GetMapping(path = "/{id}")
-    public ResponseEntity<BookDto> getBook(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Object>> getBook(@PathVariable Long id,
+                                                              @RequestParam(required = false) String fields,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        Set<BookField> bookFields = BookField.parse(fields);
+        String representation = representation(accept, bookFields);
 
-        BookDto bookDto = bookService.getBookById(id);
+        if (ifNoneMatch == null) {
+            return bookAsyncService.getBookById(id, bookFields)
+                    .thenApply(bookDto -> withETag(ResponseEntity.ok(), bookDto, bookFields, representation));
+        }
 
-        return ResponseEntity.ok(bookDto);
+        // Revalidation only needs the version, which comes from the cache or a one-column lookup
+        return bookAsyncService.getBookVersion(id).thenCompose(version -> {
+            String etag = etag(version, representation);
+            if (matchesAny(ifNoneMatch, etag)) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag).varyBy(HttpHeaders.ACCEPT).build());
+            }
+            return bookAsyncService.getBookById(id, bookFields)
+                    .thenApply(bookDto -> withETag(ResponseEntity.ok(), bookDto, bookFields, representation));
+        });
+    }
+
+    @GetMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<Object>> getBooks(@RequestParam List<Long> ids,
+                                                              @RequestParam(required = false) String fields) {
+
+        Set<BookField> bookFields = BookField.parse(fields);
+
+        return bookAsyncService.getBooksByIds(ids, bookFields)
+                .thenApply(response -> ResponseEntity.ok(projected(response, bookFields)));
+    }
+
+    @GetMapping
+    public CompletableFuture<ResponseEntity<Object>> getBooks(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "100") int limit,
+                                                              @RequestParam(required = false) String author,
+                                                              @RequestParam(required = false) Integer year,
+                                                              @RequestParam(required = false) String fields) {
+
+        Set<BookField> bookFields = BookField.parse(fields);
+
+        return bookAsyncService.getBooks(after, limit, author, year, bookFields)
+                .thenApply(page -> ResponseEntity.ok(projected(page, bookFields)));
+    }
+
+    @GetMapping(path = "/search")
+    public CompletableFuture<ResponseEntity<BookSearchResponse>> searchBooks(@RequestParam String q,
+                                                                             @RequestParam(defaultValue = "0") int page,
+                                                                             @RequestParam(defaultValue = "20") int size) {
+
+        return bookAsyncService.searchBooks(q, page, size)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                bookService.exportBooks(bookDto -> {
+                    try {
+                        ndjsonWriter.writeValue(generator, bookDto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BookImportFormat.TEXT_CSV_VALUE})
+    public ResponseEntity<BookImportSummary> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                         InputStream body) {
+
+        BookImportSummary bookImportSummary = bookImportService.importBooks(body, BookImportFormat.fromContentType(contentType));
+
+        return ResponseEntity.ok(bookImportSummary);
     }
 
     @PostMapping(path = "/new")
-    public ResponseEntity<BookDto> newBook(@RequestBody BookRequest bookRequest) {
+    public CompletableFuture<ResponseEntity<BookDto>> newBook(@RequestBody BookRequest bookRequest) {
 
-        BookDto bookDto = bookService.createNewBook(bookRequest);
+        return bookAsyncService.createNewBook(bookRequest)
+                .thenApply(bookDto -> ResponseEntity.status(HttpStatus.CREATED).body(bookDto));
+    }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(bookDto);
+    @PostMapping(path = "/batch")
+    public CompletableFuture<ResponseEntity<List<BookDto>>> newBooks(@RequestBody List<BookRequest> bookRequests) {
+
+        return bookAsyncService.createNewBooks(bookRequests)
+                .thenApply(bookDtos -> ResponseEntity.status(HttpStatus.CREATED).body(bookDtos));
     }
 
     @PutMapping(path = "/update/{id}")
-    public ResponseEntity<BookDto> updateBook(@PathVariable Long id, @RequestBody BookRequest bookRequest) {
+    public CompletableFuture<ResponseEntity<Object>> updateBook(@PathVariable Long id,
+                                                                 @RequestBody BookRequest bookRequest,
+                                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseETag(ifMatch);
+            if (expectedVersion == null) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+            }
+        }
 
-        BookDto bookDto = bookService.updateBookInfo(id, bookRequest);
+        return bookAsyncService.updateBookInfo(id, bookRequest, expectedVersion)
+                .thenApply(bookDto -> withETag(ResponseEntity.ok(), bookDto, BookField.ALL, representation(accept, BookField.ALL)));
+    }
+
+    @PatchMapping(path = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public CompletableFuture<ResponseEntity<Object>> patchBook(@PathVariable Long id,
+                                                                @RequestBody BookPatchRequest bookPatchRequest,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseETag(ifMatch);
+            if (expectedVersion == null) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+            }
+        }
+
+        return bookAsyncService.patchBook(id, bookPatchRequest, expectedVersion)
+                .thenApply(bookDto -> withETag(ResponseEntity.ok(), bookDto, BookField.ALL, representation(accept, BookField.ALL)));
+    }
+
+    //Each encoding and field set of a version is its own representation with its own strong ETag, "<version>" for
+    //the full JSON body and e.g. "<version>-cbor-f7" otherwise, so a cache never revalidates one with another's tag
+    private static String etag(long version, String representation) {
+        return "\"" + version + representation + "\"";
+    }
+
+    private static String representation(String accept, Set<BookField> fields) {
+
+        MediaType encoding = negotiatedEncoding(accept);
+        String suffix = encoding.equals(MediaType.APPLICATION_JSON) ? "" : "-" + encoding.getSubtype().replace("x-jackson-", "");
+
+        if (!BookField.isAll(fields)) {
+            int mask = 0;
+            for (BookField field : fields) {
+                mask |= 1 << field.ordinal();
+            }
+            suffix += "-f" + Integer.toHexString(mask);
+        }
+
+        return suffix;
+    }
+
+    //The same choice the message converters make: the most specific, highest quality encoding the client accepts
+    private static MediaType negotiatedEncoding(String accept) {
+
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+
+        List<MediaType> acceptable = new ArrayList<>();
+        try {
+            for (MediaType requested : MediaType.parseMediaTypes(accept)) {
+                for (MediaType encoding : BOOK_ENCODINGS) {
+                    if (requested.isCompatibleWith(encoding)) {
+                        acceptable.add(encoding.copyQualityValue(requested));
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+
+        if (acceptable.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        return acceptable.get(0).removeQualityValue();
+    }
+
+    //If-Match needs a strong, single ETag naming one version; any representation of that version will do
+    private static Long parseETag(String ifMatch) {
+
+        String value = ifMatch.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+
+        int end = value.indexOf('-');
+        try {
+            return Long.parseLong(value.substring(1, end > 0 ? end : value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //If-None-Match uses weak comparison and may list several tags
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private ResponseEntity<Object> withETag(ResponseEntity.BodyBuilder builder, BookDto bookDto,
+                                            Set<BookField> fields, String representation) {
+
+        if (bookDto.version() != null) {
+            builder.eTag(etag(bookDto.version(), representation));
+        }
+
+        return builder.varyBy(HttpHeaders.ACCEPT).body(projected(bookDto, fields));
+    }
 
-        return ResponseEntity.ok(bookDto);
+    //A full read writes every field, null or not; a fields= projection leaves out the fields it did not read
+    private Object projected(Object body, Set<BookField> fields) {
+        return BookField.isAll(fields) ? body : projectionMapper.valueToTree(body);
     }
 
     @DeleteMapping(path = "/delete/{id}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteBook(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Void>> deleteBook(@PathVariable Long id) {
 
-        bookService.deleteBookById(id);
+        return bookAsyncService.deleteBookById(id)
+                .thenApply(deleted -> ResponseEntity.noContent().<Void>build());
     }
 }
@@ -0,0 +1,47 @@
+package com.jefferson.books_jdbc.controller;
+
+import com.jefferson.books_jdbc.dto.AuthorBookCount;
+import com.jefferson.books_jdbc.dto.BookStatsSummary;
+import com.jefferson.books_jdbc.dto.YearBookCount;
+import com.jefferson.books_jdbc.stats.BookStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "/api/v1/book/stats")
+public class BookStatsController {
+
+    private final BookStatistics bookStatistics;
+
+    @Autowired
+    public BookStatsController(BookStatistics bookStatistics) {
+        this.bookStatistics = bookStatistics;
+    }
+
+    @GetMapping
+    public ResponseEntity<BookStatsSummary> getSummary() {
+
+        return ResponseEntity.ok(bookStatistics.summary());
+    }
+
+    @GetMapping(path = "/authors/{author}")
+    public ResponseEntity<AuthorBookCount> getAuthorCount(@PathVariable String author) {
+
+        return ResponseEntity.ok(new AuthorBookCount(author, bookStatistics.countByAuthor(author)));
+    }
+
+    @GetMapping(path = "/years")
+    public ResponseEntity<List<YearBookCount>> getYearCounts() {
+
+        return ResponseEntity.ok(bookStatistics.countsByYear());
+    }
+
+    @GetMapping(path = "/years/{year}")
+    public ResponseEntity<YearBookCount> getYearCount(@PathVariable int year) {
+
+        return ResponseEntity.ok(new YearBookCount(year, bookStatistics.countByYear(year)));
+    }
+}
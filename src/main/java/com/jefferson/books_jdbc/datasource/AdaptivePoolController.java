@@ -0,0 +1,226 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.jefferson.books_jdbc.datasource.PoolSizingPolicy.Action;
+import com.jefferson.books_jdbc.datasource.PoolSizingPolicy.Decision;
+import com.jefferson.books_jdbc.datasource.PoolSizingPolicy.Sample;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+//Resizes the application's Hikari pool between min-size and max-size from what it observes every sample-interval:
+//callers waiting for a connection, mean acquire wait (Hikari's hikaricp.connections.acquire timer), active
+//connections and mean time a connection is held once acquired (hikaricp.connections.usage), which leaves the
+//acquire wait out of the latency gate. The sizing rules and their hysteresis are in PoolSizingPolicy.
+//A shrink soft-evicts idle connections, since Hikari does not retire connections above a lowered maximum on its own.
+//When the pool sits behind a ConnectionLimitingDataSource the guard's limit moves with it, and callers queued on
+//the guard count as waiting.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "books.datasource.adaptive.enabled", havingValue = "true")
+public class AdaptivePoolController implements MeterBinder {
+
+    private final DataSource dataSource;
+    private final PoolSizingPolicy policy;
+    private final Duration sampleInterval;
+    private final ScheduledExecutorService sampler;
+
+    private final Map<Action, LongAdder> decisions = new EnumMap<>(Action.class);
+
+    //Statement and acquire timers are read from the registry the controller is bound to
+    private volatile MeterRegistry meterRegistry;
+    private HikariDataSource pool;
+    private ConnectionLimitingDataSource guard;
+    private double acquireCount;
+    private double acquireMillis;
+    private double queryCount;
+    private double queryMillis;
+    private volatile Sample lastSample;
+
+    @Autowired
+    public AdaptivePoolController(DataSource dataSource,
+                                  @Value("${books.datasource.adaptive.min-size:5}") int minSize,
+                                  @Value("${books.datasource.adaptive.max-size:40}") int maxSize,
+                                  @Value("${books.datasource.adaptive.sample-interval:1s}") Duration sampleInterval,
+                                  @Value("${books.datasource.adaptive.grow-wait:5ms}") Duration growWait,
+                                  @Value("${books.datasource.adaptive.shrink-utilization:0.5}") double shrinkUtilization,
+                                  @Value("${books.datasource.adaptive.grow-after:2}") int growAfter,
+                                  @Value("${books.datasource.adaptive.shrink-after:30}") int shrinkAfter,
+                                  @Value("${books.datasource.adaptive.cooldown:5}") int cooldown,
+                                  @Value("${books.datasource.adaptive.latency-tolerance:0.5}") double latencyTolerance) {
+        this.dataSource = dataSource;
+        this.policy = new PoolSizingPolicy(minSize, maxSize, growWait.toNanos() / 1_000_000.0, shrinkUtilization,
+                growAfter, shrinkAfter, cooldown, latencyTolerance);
+        this.sampleInterval = sampleInterval;
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-pool-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Action action : Action.values()) {
+            decisions.put(action, new LongAdder());
+        }
+    }
+
+    //The pool may sit behind routing or guarding wrappers; only a pool reachable through unwrap can be resized
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                log.warn("Adaptive pool sizing is enabled, but the data source is not a Hikari pool; sizing stays static");
+                return;
+            }
+            pool = dataSource.unwrap(HikariDataSource.class);
+            if (dataSource.isWrapperFor(ConnectionLimitingDataSource.class)) {
+                guard = dataSource.unwrap(ConnectionLimitingDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.warn("Adaptive pool sizing could not reach the Hikari pool: {}", e.getMessage());
+            return;
+        }
+
+        resize(policy.clamp(pool.getMaximumPoolSize()));
+        sampler.scheduleWithFixedDelay(this::sampleQuietly,
+                sampleInterval.toMillis(), sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    //One sampling step; the window is everything since the previous step
+    Decision sample() {
+
+        HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+        if (poolBean == null) {
+            return new Decision(Action.HOLD, pool.getMaximumPoolSize());
+        }
+
+        double acquireWindowMillis = 0;
+        Timer acquire = poolTimer("hikaricp.connections.acquire");
+        if (acquire != null) {
+            double count = acquire.count();
+            double millis = acquire.totalTime(TimeUnit.MILLISECONDS);
+            acquireWindowMillis = count > acquireCount ? (millis - acquireMillis) / (count - acquireCount) : 0;
+            acquireCount = count;
+            acquireMillis = millis;
+        }
+
+        double queryWindowMillis = 0;
+        Timer usage = poolTimer("hikaricp.connections.usage");
+        if (usage != null) {
+            double count = usage.count();
+            double millis = usage.totalTime(TimeUnit.MILLISECONDS);
+            queryWindowMillis = count > queryCount ? (millis - queryMillis) / (count - queryCount) : 0;
+            queryCount = count;
+            queryMillis = millis;
+        }
+
+        // With the guard on, callers wait on its permits and never reach the pool's own queue
+        int waiting = poolBean.getThreadsAwaitingConnection() + (guard == null ? 0 : guard.queuedCallers());
+
+        Sample sample = new Sample(pool.getMaximumPoolSize(), poolBean.getActiveConnections(),
+                waiting, acquireWindowMillis, queryWindowMillis);
+        lastSample = sample;
+
+        Decision decision = policy.next(sample);
+        decisions.get(decision.action()).increment();
+
+        if (decision.targetSize() != sample.poolSize()) {
+            log.info("Resizing connection pool {} -> {} ({} active, {} waiting, acquire {} ms, query {} ms)",
+                    sample.poolSize(), decision.targetSize(), sample.active(), sample.pending(),
+                    String.format(Locale.ROOT, "%.2f", sample.acquireMillis()),
+                    String.format(Locale.ROOT, "%.2f", sample.queryMillis()));
+            resize(decision.targetSize());
+            if (decision.action() == Action.SHRINK) {
+                poolBean.softEvictConnections();
+            }
+        } else if (decision.action() == Action.BLOCKED) {
+            log.info("Connection pool held at {}: query latency rose to {} ms since it last grew",
+                    sample.poolSize(), String.format(Locale.ROOT, "%.2f", sample.queryMillis()));
+        }
+
+        return decision;
+    }
+
+    private Timer poolTimer(String name) {
+        MeterRegistry registry = meterRegistry;
+        return registry == null ? null : registry.find(name).tag("pool", pool.getPoolName()).timer();
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            log.error("Adaptive pool sampling failed: {}", e.getMessage());
+        }
+    }
+
+    //Minimum idle follows the maximum, so a grown pool is filled ahead of the callers that need it.
+    //The guard moves by the same amount, keeping whatever headroom it was configured with over the pool.
+    private void resize(int size) {
+        if (guard != null) {
+            guard.resize(Math.max(1, guard.limit() + size - pool.getMaximumPoolSize()));
+        }
+        if (size > pool.getMaximumPoolSize()) {
+            pool.getHikariConfigMXBean().setMaximumPoolSize(size);
+            pool.getHikariConfigMXBean().setMinimumIdle(size);
+        } else {
+            pool.getHikariConfigMXBean().setMinimumIdle(size);
+            pool.getHikariConfigMXBean().setMaximumPoolSize(size);
+        }
+    }
+
+    public int poolSize() {
+        return pool == null ? 0 : pool.getMaximumPoolSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        Gauge.builder("books.datasource.adaptive.size", this, AdaptivePoolController::poolSize)
+                .description("Maximum pool size chosen by the adaptive controller")
+                .register(registry);
+        Gauge.builder("books.datasource.adaptive.acquire", this, controller -> sampled(Sample::acquireMillis))
+                .description("Mean connection acquire time over the last sample")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("books.datasource.adaptive.query", this, controller -> sampled(Sample::queryMillis))
+                .description("Mean time a connection was held once acquired over the last sample")
+                .baseUnit("milliseconds")
+                .register(registry);
+        decisions.forEach((action, count) -> FunctionCounter.builder("books.datasource.adaptive.decisions", count, LongAdder::sum)
+                .tag("action", action.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+    }
+
+    private double sampled(ToDoubleFunction<Sample> value) {
+        Sample sample = lastSample;
+        return sample == null ? 0 : value.applyAsDouble(sample);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sampler.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//Wraps every Hikari pool in a ConnectionLimitingDataSource; switched on by the virtual-threads profile
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books.datasource.guard.enabled", havingValue = "true")
+public class ConnectionGuardConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+            @Value("${books.datasource.guard.max-concurrent-connections:0}") int maxConcurrentConnections,
+            @Value("${books.datasource.guard.acquire-timeout:2s}") Duration acquireTimeout) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+                if (bean instanceof HikariDataSource hikariDataSource) {
+                    // By default the guard admits exactly as many callers as the pool has connections
+                    int permits = maxConcurrentConnections > 0
+                            ? maxConcurrentConnections
+                            : hikariDataSource.getMaximumPoolSize();
+                    return new ConnectionLimitingDataSource(hikariDataSource, permits, acquireTimeout);
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder connectionGuardMetrics(ObjectProvider<DataSource> dataSources) {
+
+        return meterRegistry -> dataSources.orderedStream()
+                .filter(ConnectionLimitingDataSource.class::isInstance)
+                .map(ConnectionLimitingDataSource.class::cast)
+                .forEach(dataSource -> {
+                    Gauge.builder("books.datasource.guard.available", dataSource, ConnectionLimitingDataSource::availablePermits)
+                            .description("Connection permits currently free")
+                            .register(meterRegistry);
+                    Gauge.builder("books.datasource.guard.queued", dataSource, ConnectionLimitingDataSource::queuedCallers)
+                            .description("Callers waiting for a connection permit")
+                            .register(meterRegistry);
+                });
+    }
+}
@@ -0,0 +1,111 @@
+package com.jefferson.books_jdbc.datasource;
+
+//Decides the pool size from one sample at a time. Growing needs growAfter consecutive samples with callers waiting
+//for a connection, shrinking needs shrinkAfter consecutive samples with no waiting and most connections idle, and
+//every change is followed by cooldown samples of holding still. The gap between those two conditions is the
+//hysteresis: a load that sits between them leaves the size alone. Growth is also held back when query latency
+//rose after the last growth, since more connections would only add contention inside the database.
+final class PoolSizingPolicy {
+
+    enum Action {
+        GROW, SHRINK, HOLD, BLOCKED
+    }
+
+    record Sample(int poolSize, int active, int pending, double acquireMillis, double queryMillis) {
+    }
+
+    record Decision(Action action, int targetSize) {
+    }
+
+    private final int minSize;
+    private final int maxSize;
+    private final double growWaitMillis;
+    private final double shrinkUtilization;
+    private final int growAfter;
+    private final int shrinkAfter;
+    private final int cooldown;
+    private final double latencyTolerance;
+
+    private int hotSamples;
+    private int coldSamples;
+    private int cooldownLeft;
+    private double queryMillisAtLastGrowth;
+
+    PoolSizingPolicy(int minSize, int maxSize, double growWaitMillis, double shrinkUtilization,
+                     int growAfter, int shrinkAfter, int cooldown, double latencyTolerance) {
+
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Adaptive pool: sizes must satisfy 0 < min-size <= max-size");
+        }
+        if (shrinkUtilization <= 0 || shrinkUtilization >= 1) {
+            throw new IllegalArgumentException("Adaptive pool: shrink utilization must be between 0 and 1");
+        }
+
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.growWaitMillis = growWaitMillis;
+        this.shrinkUtilization = shrinkUtilization;
+        this.growAfter = growAfter;
+        this.shrinkAfter = shrinkAfter;
+        this.cooldown = cooldown;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    Decision next(Sample sample) {
+
+        int size = sample.poolSize();
+
+        if (size != clamp(size)) {
+            return changed(size < minSize ? Action.GROW : Action.SHRINK, clamp(size), sample);
+        }
+
+        boolean waiting = sample.pending() > 0 || sample.acquireMillis() > growWaitMillis;
+        boolean idle = sample.pending() == 0 && sample.acquireMillis() <= growWaitMillis
+                && sample.active() < size * shrinkUtilization;
+
+        hotSamples = waiting ? hotSamples + 1 : 0;
+        coldSamples = idle ? coldSamples + 1 : 0;
+        if (idle) {
+            // Once the pool has been idle the database is no longer the one from the last burst
+            queryMillisAtLastGrowth = 0;
+        }
+
+        if (cooldownLeft > 0) {
+            cooldownLeft--;
+            return new Decision(Action.HOLD, size);
+        }
+
+        if (hotSamples >= growAfter && size < maxSize) {
+            if (queryMillisAtLastGrowth > 0 && sample.queryMillis() > queryMillisAtLastGrowth * (1 + latencyTolerance)) {
+                hotSamples = 0;
+                cooldownLeft = cooldown;
+                return new Decision(Action.BLOCKED, size);
+            }
+            // Grow by half so a burst is absorbed in a few steps rather than one connection at a time
+            return changed(Action.GROW, clamp(size + Math.max(1, size / 2)), sample);
+        }
+
+        if (coldSamples >= shrinkAfter && size > minSize) {
+            // Give back half of the idle connections
+            return changed(Action.SHRINK, clamp(size - Math.max(1, (size - sample.active()) / 2)), sample);
+        }
+
+        return new Decision(Action.HOLD, size);
+    }
+
+    private Decision changed(Action action, int targetSize, Sample sample) {
+
+        hotSamples = 0;
+        coldSamples = 0;
+        cooldownLeft = cooldown;
+        if (action == Action.GROW) {
+            queryMillisAtLastGrowth = sample.queryMillis();
+        }
+
+        return new Decision(action, targetSize);
+    }
+}
@@ -0,0 +1,58 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//Primary pool from spring.datasource, replica pool from books.datasource.replica.hikari, and a routing
+//datasource in front of both. Each pool is its own bean, so it gets its own Hikari metrics and health check.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("books-primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("books.datasource.replica.hikari")
+    HikariDataSource replicaDataSource() {
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("books-replica");
+        return dataSource;
+    }
+
+    @Bean
+    ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                 @Value("${books.datasource.replica.sticky-window:1s}") Duration stickyWindow,
+                                                 MeterRegistry meterRegistry) {
+
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, stickyWindow, meterRegistry);
+    }
+
+    // The lazy proxy defers the physical connection to the first statement, by which point a read-only
+    // transaction has published its flag and the routing decision can see it
+    @Bean
+    @Primary
+    DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
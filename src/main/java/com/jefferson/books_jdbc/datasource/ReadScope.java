@@ -0,0 +1,33 @@
+package com.jefferson.books_jdbc.datasource;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+//Book ids the current thread is about to read, so ReadWriteRoutingDataSource can keep reads of books written
+//moments ago on the primary. Reads outside a scope, such as pages and exports, are not keyed by id.
+public final class ReadScope {
+
+    private static final ThreadLocal<Collection<Long>> IDS = new ThreadLocal<>();
+
+    private ReadScope() {
+    }
+
+    public static <T> T reading(Collection<Long> ids, Supplier<T> read) {
+
+        Collection<Long> outer = IDS.get();
+        IDS.set(ids);
+        try {
+            return read.get();
+        } finally {
+            if (outer == null) {
+                IDS.remove();
+            } else {
+                IDS.set(outer);
+            }
+        }
+    }
+
+    static Collection<Long> current() {
+        return IDS.get();
+    }
+}
@@ -0,0 +1,107 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.event.BooksFlushedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Sends read-only work to the replica and everything else to the primary. Reads are marked with
+//@Transactional(readOnly = true); anything unmarked (writes, schema init, ad-hoc statements) stays on the primary.
+//For a short window after a book is written, reads of that book go to the primary too, so callers see what they
+//just wrote even while the replica is catching up. Reads name their books through ReadScope; reads that are not
+//keyed by id (pages, exports) always use the replica. Books are marked from BookChangedEvent and from
+//BooksFlushedEvent, which write-behind batches publish when they land.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final int MIN_PRUNE_SIZE = 1024;
+
+    private final long stickyWindowNanos;
+    private final Counter[] routed = new Counter[Route.values().length];
+    //Book id -> end of its sticky window; expired entries are pruned once the map doubles
+    private final ConcurrentHashMap<Long, Long> stickyUntilNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger pruneAt = new AtomicInteger(MIN_PRUNE_SIZE);
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration stickyWindow, MeterRegistry meterRegistry) {
+        this.stickyWindowNanos = stickyWindow.toNanos();
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        for (Route route : Route.values()) {
+            routed[route.ordinal()] = Counter.builder("books.datasource.routed")
+                    .description("Connections handed out per target pool")
+                    .tag("pool", route.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public void markWritten(Collection<Long> bookIds) {
+
+        long until = System.nanoTime() + stickyWindowNanos;
+        bookIds.forEach(id -> stickyUntilNanos.put(id, until));
+
+        int size = stickyUntilNanos.size();
+        int limit = pruneAt.get();
+        if (size >= limit && pruneAt.compareAndSet(limit, Integer.MAX_VALUE)) {
+            long now = System.nanoTime();
+            stickyUntilNanos.values().removeIf(stickyUntil -> now - stickyUntil >= 0);
+            pruneAt.set(Math.max(MIN_PRUNE_SIZE, stickyUntilNanos.size() * 2));
+        }
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        markWritten(List.of(event.bookId()));
+    }
+
+    @EventListener
+    public void onBooksFlushed(BooksFlushedEvent event) {
+        markWritten(event.bookIds());
+    }
+
+    public Route currentRoute() {
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+
+        Collection<Long> ids = ReadScope.current();
+        if (ids == null || stickyUntilNanos.isEmpty()) {
+            return Route.REPLICA;
+        }
+
+        long now = System.nanoTime();
+        for (Long id : ids) {
+            Long stickyUntil = stickyUntilNanos.get(id);
+            if (stickyUntil != null && now - stickyUntil < 0) {
+                return Route.PRIMARY;
+            }
+        }
+
+        return Route.REPLICA;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        Route route = currentRoute();
+        routed[route.ordinal()].increment();
+        return route;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.repository.BookRepositoryImpl;
+import com.jefferson.books_jdbc.repository.BookRepositoryMetrics;
+import com.jefferson.books_jdbc.repository.ShardIdGenerator;
+import com.jefferson.books_jdbc.repository.ShardedBookRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//One Hikari pool and one BookRepositoryImpl per url in books.sharding.urls, fronted by a ShardedBookRepository
+//that replaces the single-database repository. The pools are owned by the sharded repository rather than
+//registered as beans, so the regular spring.datasource keeps backing everything else.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    ShardedBookRepository shardedBookRepository(@Value("${books.sharding.urls:}") List<String> shardUrls,
+                                                @Value("${books.sharding.username:sa}") String username,
+                                                @Value("${books.sharding.password:}") String password,
+                                                @Value("${books.sharding.id-block-size:100}") int idBlockSize,
+                                                @Value("${books.sharding.init-schema:true}") boolean initSchema,
+                                                @Value("${books.batch.chunk-size:500}") int batchChunkSize,
+                                                @Value("${books.query.in-chunk-size:1000}") int inChunkSize,
+                                                @Value("${books.query.stream-fetch-size:1000}") int streamFetchSize,
+                                                BookRepositoryMetrics metrics,
+                                                MeterRegistry meterRegistry) {
+
+        List<String> urls = shardUrls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("books.sharding.urls must list at least one database");
+        }
+
+        List<HikariDataSource> pools = new ArrayList<>(urls.size());
+        List<JdbcTemplate> templates = new ArrayList<>(urls.size());
+        List<BookRepository> shards = new ArrayList<>(urls.size());
+
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("books-shard-" + i);
+            pool.setJdbcUrl(urls.get(i));
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+
+            if (initSchema) {
+                initSchema(pool, idBlockSize);
+            }
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+            templates.add(jdbcTemplate);
+            shards.add(ShardedBookRepository.transactional(
+                    new BookRepositoryImpl(jdbcTemplate, metrics, batchChunkSize, inChunkSize, streamFetchSize), pool));
+        }
+
+        return new ShardedBookRepository(shards, new ShardIdGenerator(templates, idBlockSize), pools);
+    }
+
+    private static void initSchema(HikariDataSource pool, int idBlockSize) {
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"),
+                new ByteArrayResource(ShardIdGenerator.createSequenceSql(idBlockSize).getBytes(StandardCharsets.UTF_8)));
+        populator.execute(pool);
+    }
+}
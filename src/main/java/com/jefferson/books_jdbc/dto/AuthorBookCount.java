@@ -0,0 +1,4 @@
+package com.jefferson.books_jdbc.dto;
+
+public record AuthorBookCount(String author, long books) {
+}
@@ -1,9 +1,11 @@
 package com.jefferson.books_jdbc.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
+//Fields left out by a fields= projection are null; BookController omits them from projected responses only
 public record BookDto(
         @NotNull(message = "Book dto: book id mustn't be null")
         @Positive(message = "Book dto: book id must be positive")
@@ -16,5 +18,13 @@ public record BookDto(
         String author,
 
         @NotNull(message = "Book dto: publicationYear is null")
-        Integer publicationYear) {
+        Integer publicationYear,
+
+        //Sent as the ETag header rather than in the body
+        @JsonIgnore
+        Long version) {
+
+    public BookDto(Long id, String title, String author, Integer publicationYear) {
+        this(id, title, author, publicationYear, null);
+    }
 }
@@ -0,0 +1,5 @@
+package com.jefferson.books_jdbc.dto;
+
+public record BookImportRejection(long lineNumber,
+                                  String reason) {
+}
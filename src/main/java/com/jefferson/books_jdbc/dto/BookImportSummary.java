@@ -0,0 +1,10 @@
+package com.jefferson.books_jdbc.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record BookImportSummary(long accepted,
+                                long rejected,
+                                Map<String, Long> rejectReasons,
+                                List<BookImportRejection> sampleRejections) {
+}
@@ -0,0 +1,7 @@
+package com.jefferson.books_jdbc.dto;
+
+import java.util.List;
+
+public record BookPage(List<BookDto> books,
+                       Long nextCursor) {
+}
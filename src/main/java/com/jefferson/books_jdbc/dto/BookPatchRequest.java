@@ -0,0 +1,62 @@
+package com.jefferson.books_jdbc.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.Map;
+import java.util.Set;
+
+//JSON merge patch body: a null component means the member was absent and the column is left alone
+public record BookPatchRequest(@Pattern(regexp = "(?s).*\\S.*", message = "Book patch: title is empty")
+                               String title,
+
+                               @Pattern(regexp = "(?s).*\\S.*", message = "Book patch: author is empty")
+                               String author,
+
+                               Integer publicationYear) {
+
+    private static final Set<String> MEMBERS = Set.of("title", "author", "publicationYear");
+
+    //Every column is required, so an explicit null (merge patch for "remove") is rejected along with unknown members
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static BookPatchRequest fromMergePatch(Map<String, JsonNode> members) {
+
+        members.forEach((name, value) -> {
+            if (!MEMBERS.contains(name)) {
+                throw new IllegalArgumentException("Book patch: unknown member " + name);
+            }
+            if (value == null || value.isNull()) {
+                throw new IllegalArgumentException("Book patch: " + name + " cannot be removed");
+            }
+        });
+
+        return new BookPatchRequest(text(members.get("title"), "title"),
+                text(members.get("author"), "author"),
+                year(members.get("publicationYear")));
+    }
+
+    private static String text(JsonNode value, String name) {
+
+        if (value == null) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException("Book patch: " + name + " must be a string");
+        }
+
+        return value.textValue();
+    }
+
+    private static Integer year(JsonNode value) {
+
+        if (value == null) {
+            return null;
+        }
+        if (!value.isIntegralNumber() || !value.canConvertToInt()) {
+            throw new IllegalArgumentException("Book patch: publicationYear must be an integer");
+        }
+
+        return value.intValue();
+    }
+}
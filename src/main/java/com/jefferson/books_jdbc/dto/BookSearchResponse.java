@@ -0,0 +1,6 @@
+package com.jefferson.books_jdbc.dto;
+
+import java.util.List;
+
+public record BookSearchResponse(List<BookDto> books, int totalHits, boolean totalHitsCapped, int page, int size) {
+}
@@ -0,0 +1,4 @@
+package com.jefferson.books_jdbc.dto;
+
+public record BookStatsSummary(long totalBooks, int authors, int publicationYears, boolean ready) {
+}
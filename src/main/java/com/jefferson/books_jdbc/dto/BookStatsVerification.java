@@ -0,0 +1,11 @@
+package com.jefferson.books_jdbc.dto;
+
+import java.util.Map;
+
+//Drift values are recounted minus tracked; empty maps and a zero book drift mean the counts were exact
+public record BookStatsVerification(long booksCounted,
+                                    long booksDrift,
+                                    Map<String, Long> authorDrift,
+                                    Map<Integer, Long> yearDrift,
+                                    long durationMillis) {
+}
@@ -0,0 +1,7 @@
+package com.jefferson.books_jdbc.dto;
+
+import java.util.List;
+
+public record BooksByIdsResponse(List<BookDto> books,
+                                 List<Long> missingIds) {
+}
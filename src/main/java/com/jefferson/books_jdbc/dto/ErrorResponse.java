@@ -0,0 +1,7 @@
+package com.jefferson.books_jdbc.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+//Same {"Error": "..."} shape as the map bodies, without building a map for every response
+public record ErrorResponse(@JsonProperty("Error") String error) {
+}
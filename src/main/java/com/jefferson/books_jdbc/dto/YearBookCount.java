@@ -0,0 +1,4 @@
+package com.jefferson.books_jdbc.dto;
+
+public record YearBookCount(int publicationYear, long books) {
+}
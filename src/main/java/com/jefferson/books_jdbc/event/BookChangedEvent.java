@@ -0,0 +1,24 @@
+package com.jefferson.books_jdbc.event;
+
+import com.jefferson.books_jdbc.model.Book;
+
+//Published after a write succeeds; current is the stored state, or null for DELETED. previous is what the write
+//replaced as read just before it (at least author and year), or null for CREATED and when it was not known.
+public record BookChangedEvent(ChangeType changeType, long bookId, Book previous, Book current) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static BookChangedEvent created(Book book) {
+        return new BookChangedEvent(ChangeType.CREATED, book.getId(), null, book);
+    }
+
+    public static BookChangedEvent updated(Book previous, Book book) {
+        return new BookChangedEvent(ChangeType.UPDATED, book.getId(), previous, book);
+    }
+
+    public static BookChangedEvent deleted(long bookId, Book previous) {
+        return new BookChangedEvent(ChangeType.DELETED, bookId, previous, null);
+    }
+}
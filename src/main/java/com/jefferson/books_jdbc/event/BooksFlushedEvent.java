@@ -0,0 +1,7 @@
+package com.jefferson.books_jdbc.event;
+
+import java.util.List;
+
+//Published when buffered writes reach the table; the stored versions of these books have moved
+public record BooksFlushedEvent(List<Long> bookIds) {
+}
@@ -1,7 +1,27 @@
 package com.jefferson.books_jdbc.exception;
 
+//Not found is an expected answer, not a fault: the message carries everything, so no stack trace is captured
 public class BookNotFoundException extends RuntimeException {
+
+    private final Long bookId;
+    private String message;
+
     public BookNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.bookId = null;
+    }
+
+    //The message is formatted once, when first asked for
+    public BookNotFoundException(Long bookId) {
+        super(null, null, false, false);
+        this.bookId = bookId;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = bookId != null ? "Book not found for id: " + bookId : super.getMessage();
+        }
+        return message;
     }
 }
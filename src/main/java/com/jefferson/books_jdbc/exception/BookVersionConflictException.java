@@ -0,0 +1,16 @@
+package com.jefferson.books_jdbc.exception;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+//A stale If-Match version; still an OptimisticLockingFailureException for callers, but without a stack trace
+public class BookVersionConflictException extends OptimisticLockingFailureException {
+
+    public BookVersionConflictException(long id, long expectedVersion) {
+        super("Book " + id + " was modified since version " + expectedVersion);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
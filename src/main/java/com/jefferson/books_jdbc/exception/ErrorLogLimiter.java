@@ -0,0 +1,42 @@
+package com.jefferson.books_jdbc.exception;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Lets through at most limit log lines per interval and counts the rest, so a burst of identical errors costs a
+//counter increment instead of a log line each. The count of skipped lines is handed to the next line that is
+//logged. Lock-free: a racing window reset can let a line or two extra through, which is harmless.
+final class ErrorLogLimiter {
+
+    private final long intervalNanos;
+    private final int limit;
+
+    private final AtomicLong windowStart;
+    private final AtomicInteger loggedInWindow = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    ErrorLogLimiter(Duration interval, int limit) {
+        this.intervalNanos = interval.toNanos();
+        this.limit = limit;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    //-1 when this occurrence should not be logged, otherwise how many were skipped since the last logged one
+    long tryLog() {
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            loggedInWindow.set(0);
+        }
+
+        if (loggedInWindow.incrementAndGet() > limit) {
+            suppressed.increment();
+            return -1;
+        }
+
+        return suppressed.sumThenReset();
+    }
+}
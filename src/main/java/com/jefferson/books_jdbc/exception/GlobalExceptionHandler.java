@@ -1,22 +1,61 @@
 package com.jefferson.books_jdbc.exception;
 
+import com.jefferson.books_jdbc.dto.ErrorResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
+//Error responses are the hot path under scraping load, so fixed bodies are built once, every error is counted per
+//type and log lines are rate-limited per type rather than written for each request
 @Slf4j
 @ControllerAdvice
-public class GlobalExceptionHandler {
+public class GlobalExceptionHandler implements MeterBinder {
+
+    enum ErrorType {
+        VALIDATION, NOT_FOUND, BAD_REQUEST, CONFLICT, VERSION_MISMATCH, UNAVAILABLE, UNSUPPORTED_MEDIA_TYPE, INTERNAL
+    }
+
+    private static final Map<String, String> DUPLICATE_BODY = Map.of("Error", "Unique index or primary key violation.");
+    private static final Map<String, String> UNREADABLE_BODY = Map.of("Error", "Request body is null or cannot be read.");
+    private static final Map<String, String> DATABASE_BUSY_BODY = Map.of("Error", "Database is busy, retry later.");
+    private static final Map<String, String> SERVER_BUSY_BODY = Map.of("Error", "Server is busy, retry later.");
+
+    private final Map<ErrorType, LongAdder> counts = new EnumMap<>(ErrorType.class);
+    private final Map<ErrorType, ErrorLogLimiter> limiters = new EnumMap<>(ErrorType.class);
+
+    @Autowired
+    public GlobalExceptionHandler(@Value("${books.errors.log-interval:1s}") Duration logInterval,
+                                  @Value("${books.errors.log-limit:10}") int logLimit) {
+        for (ErrorType type : ErrorType.values()) {
+            counts.put(type, new LongAdder());
+            limiters.put(type, new ErrorLogLimiter(logInterval, logLimit));
+        }
+    }
 
     //Controller validation exceptions handling
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -26,8 +65,7 @@ public class GlobalExceptionHandler {
         exception.getBindingResult().getFieldErrors()
                 .forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
 
-        log.error("Validation errors found in Controller: {}", errors.size());
-        errors.forEach((field, msg) -> log.error("Field: '{}': {}", field, msg));
+        record(ErrorType.VALIDATION, Level.ERROR, "Validation errors found in Controller: {}", errors);
 
         return ResponseEntity.badRequest().body(errors);
     }
@@ -38,51 +76,130 @@ public class GlobalExceptionHandler {
     handleConstraintViolationException(ConstraintViolationException exception) {
         Map<String, String> errors = new HashMap<>();
         exception.getConstraintViolations()
-                .forEach(constraintViolation -> {
-                    String path = constraintViolation.getPropertyPath().toString();
-                    String[] paths = path.split("\\.");
-                    errors.put(paths[paths.length - 1], constraintViolation.getMessage());
-                });
+                .forEach(constraintViolation -> errors.put(
+                        violationKey(constraintViolation.getPropertyPath().toString()),
+                        constraintViolation.getMessage()));
 
-        log.error("Validation errors found in Service: {}", errors.size());
-        errors.forEach((field, msg) -> log.error("Field: '{}': {}", field, msg));
+        record(ErrorType.VALIDATION, Level.ERROR, "Validation errors found in Service: {}", errors);
 
         return ResponseEntity.badRequest().body(errors);
     }
 
+    //Bulk payloads keep the element index (e.g. "bookRequests[3].title") so clients can tell which item failed
+    private static String violationKey(String path) {
+        if (path.indexOf('[') >= 0) {
+            return path.substring(path.indexOf('.') + 1);
+        }
+        String[] paths = path.split("\\.");
+        return paths[paths.length - 1];
+    }
+
     @ExceptionHandler(BookNotFoundException.class)
-    public ResponseEntity<Map<String, String>> handleProductNotFoundException(BookNotFoundException exception) {
-        log.warn(exception.getMessage());
+    public ResponseEntity<ErrorResponse> handleProductNotFoundException(BookNotFoundException exception) {
+        String message = exception.getMessage();
+        record(ErrorType.NOT_FOUND, Level.WARN, message);
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(message));
+    }
+
+    @ExceptionHandler(UnknownBookFieldException.class)
+    public ResponseEntity<Map<String, String>> handleUnknownBookField(UnknownBookFieldException exception) {
+        record(ErrorType.BAD_REQUEST, Level.WARN, exception.getMessage());
+        return ResponseEntity.badRequest()
                 .body(Map.of("Error", exception.getMessage()));
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<Map<String, String>> handleTypeMismatchException(MethodArgumentTypeMismatchException exception) {
-        log.error(exception.getMessage());
+        record(ErrorType.BAD_REQUEST, Level.ERROR, exception.getMessage());
         return ResponseEntity.badRequest()
                 .body(Map.of("Error", "Invalid format: " + exception.getValue()));
     }
 
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String, String>> handleDataIntegrityViolationException(DataIntegrityViolationException exception) {
-        log.error(exception.getMessage());
+        record(ErrorType.CONFLICT, Level.ERROR, exception.getMessage());
         return ResponseEntity.status(HttpStatus.CONFLICT)
-                .body(Map.of("Error", "Unique index or primary key violation."));
+                .body(DUPLICATE_BODY);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleVersionMismatch(OptimisticLockingFailureException exception) {
+        record(ErrorType.VERSION_MISMATCH, Level.WARN, exception.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("Error", exception.getMessage()));
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String, String>> handleBadRequestBody(HttpMessageNotReadableException exception) {
-        log.error(exception.getMessage());
+        record(ErrorType.BAD_REQUEST, Level.ERROR, exception.getMessage());
         return ResponseEntity
                 .badRequest()
-                .body(Map.of("Error", "Request body is null or cannot be read."));
+                .body(UNREADABLE_BODY);
+    }
+
+    @ExceptionHandler(CannotGetJdbcConnectionException.class)
+    public ResponseEntity<Map<String, String>> handleConnectionUnavailable(CannotGetJdbcConnectionException exception) {
+        record(ErrorType.UNAVAILABLE, Level.ERROR, exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(DATABASE_BUSY_BODY);
+    }
+
+    //The JDBC executor's queue is full: shed the request rather than let it wait behind everyone else
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleExecutorSaturated(RejectedExecutionException exception) {
+        record(ErrorType.UNAVAILABLE, Level.WARN, "Book request rejected, JDBC executor is saturated");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(SERVER_BUSY_BODY);
+    }
+
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    public ResponseEntity<Map<String, String>> handleUnsupportedMediaType(HttpMediaTypeNotSupportedException exception) {
+        record(ErrorType.UNSUPPORTED_MEDIA_TYPE, Level.ERROR, exception.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .body(Map.of("Error", "Unsupported content type: " + exception.getContentType()));
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleCommonException(Exception exception) {
-        log.error(exception.getMessage());
+        record(ErrorType.INTERNAL, Level.ERROR, exception.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("Error", exception.getMessage()));
     }
+
+    private void record(ErrorType type, Level level, String message) {
+        record(type, level, "{}", message);
+    }
+
+    //Every error is counted; only the ones the limiter lets through are formatted and written
+    private void record(ErrorType type, Level level, String format, Object argument) {
+
+        counts.get(type).increment();
+
+        long suppressed = limiters.get(type).tryLog();
+        if (suppressed < 0) {
+            return;
+        }
+
+        if (suppressed > 0) {
+            log.atLevel(level).log(format + " ({} similar errors not logged)", argument, suppressed);
+        } else {
+            log.atLevel(level).log(format, argument);
+        }
+    }
+
+    long count(ErrorType type) {
+        return counts.get(type).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        counts.forEach((type, count) -> FunctionCounter.builder("books.errors", count, LongAdder::sum)
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .description("Error responses by type, including the ones not logged")
+                .register(meterRegistry));
+    }
 }
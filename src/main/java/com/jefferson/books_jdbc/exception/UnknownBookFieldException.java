@@ -0,0 +1,8 @@
+package com.jefferson.books_jdbc.exception;
+
+//Raised while parsing a client's field list, so like not found it skips the stack trace
+public class UnknownBookFieldException extends RuntimeException {
+    public UnknownBookFieldException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,23 @@
+package com.jefferson.books_jdbc.importer;
+
+import org.springframework.http.MediaType;
+
+public enum BookImportFormat {
+
+    NDJSON,
+    CSV;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static BookImportFormat fromContentType(MediaType contentType) {
+
+        if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+            return CSV;
+        }
+
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+}
@@ -0,0 +1,19 @@
+package com.jefferson.books_jdbc.importer;
+
+import com.jefferson.books_jdbc.dto.BookRequest;
+
+//One parsed input line: either a request to validate and insert, or the reason it could not be parsed
+public record BookRecord(long lineNumber, BookRequest bookRequest, String error) {
+
+    public static BookRecord parsed(long lineNumber, BookRequest bookRequest) {
+        return new BookRecord(lineNumber, bookRequest, null);
+    }
+
+    public static BookRecord malformed(long lineNumber, String error) {
+        return new BookRecord(lineNumber, null, error);
+    }
+
+    public boolean isMalformed() {
+        return error != null;
+    }
+}
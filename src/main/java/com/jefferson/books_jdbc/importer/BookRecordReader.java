@@ -0,0 +1,10 @@
+package com.jefferson.books_jdbc.importer;
+
+import java.io.IOException;
+
+//Pulls one record at a time from the upload so the whole file is never held in memory
+public interface BookRecordReader {
+
+    //Returns null once the input is exhausted
+    BookRecord next() throws IOException;
+}
@@ -0,0 +1,88 @@
+package com.jefferson.books_jdbc.importer;
+
+import com.jefferson.books_jdbc.dto.BookRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Reads "title,author,publication_year" rows; a leading header row is skipped and quoted fields may contain commas
+public class CsvBookRecordReader implements BookRecordReader {
+
+    private static final int COLUMNS = 3;
+
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    public CsvBookRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public BookRecord next() throws IOException {
+
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank() || (lineNumber == 1 && isHeader(line)));
+
+        List<String> fields = split(line);
+        if (fields == null || fields.size() != COLUMNS) {
+            return BookRecord.malformed(lineNumber, "Malformed CSV record");
+        }
+
+        Integer publicationYear;
+        try {
+            publicationYear = fields.get(2).isBlank() ? null : Integer.valueOf(fields.get(2).trim());
+        } catch (NumberFormatException e) {
+            return BookRecord.malformed(lineNumber, "Invalid publication year");
+        }
+
+        return BookRecord.parsed(lineNumber, new BookRequest(fields.get(0), fields.get(1), publicationYear));
+    }
+
+    private static boolean isHeader(String line) {
+        return line.toLowerCase().startsWith("title,");
+    }
+
+    //Returns null when a quoted field is not closed on the same line
+    private static List<String> split(String line) {
+
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,40 @@
+package com.jefferson.books_jdbc.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.jefferson.books_jdbc.dto.BookRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public class NdjsonBookRecordReader implements BookRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long lineNumber;
+
+    public NdjsonBookRecordReader(BufferedReader reader, ObjectReader objectReader) {
+        this.reader = reader;
+        this.objectReader = objectReader.forType(BookRequest.class);
+    }
+
+    @Override
+    public BookRecord next() throws IOException {
+
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        // Each line is parsed on its own so one malformed record does not abort the rest of the file
+        try {
+            return BookRecord.parsed(lineNumber, objectReader.readValue(line));
+        } catch (JsonProcessingException e) {
+            return BookRecord.malformed(lineNumber, "Malformed JSON record");
+        }
+    }
+}
@@ -30,4 +30,11 @@ public class Book {
 
     @Column("publication_year")
     private Integer publicationYear;
+
+    //Bumped on every update; null on a write means the caller does not expect a particular version
+    private Long version;
+
+    public Book(Long id, String title, String author, Integer publicationYear) {
+        this(id, title, author, publicationYear, null);
+    }
 }
@@ -0,0 +1,81 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.exception.UnknownBookFieldException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+//Fields a reader can ask for with fields=; the id is always returned because cursors and multi-get rely on it,
+//and the version because it backs the ETag
+public enum BookField {
+
+    ID("id", "id"),
+    TITLE("title", "title"),
+    AUTHOR("author", "author"),
+    PUBLICATION_YEAR("publicationYear", "publication_year"),
+    VERSION("version", "version");
+
+    public static final Set<BookField> ALL = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
+    private final String jsonName;
+    private final String column;
+
+    BookField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public static Set<BookField> parse(String fields) {
+
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        EnumSet<BookField> parsed = EnumSet.of(ID, VERSION);
+        for (String name : fields.split(",")) {
+            parsed.add(fromJsonName(name.trim()));
+        }
+
+        return parsed.size() == ALL.size() ? ALL : Collections.unmodifiableSet(parsed);
+    }
+
+    public static boolean isAll(Set<BookField> fields) {
+        return fields == null || fields.size() == ALL.size();
+    }
+
+    //The fields a read returns, which always include the id and the version
+    static int mask(Set<BookField> fields) {
+        return bits(fields) | 1 << ID.ordinal() | 1 << VERSION.ordinal();
+    }
+
+    //Exactly the given fields, one bit per ordinal
+    static int bits(Set<BookField> fields) {
+
+        int bits = 0;
+        for (BookField field : fields) {
+            bits |= 1 << field.ordinal();
+        }
+
+        return bits;
+    }
+
+    private static BookField fromJsonName(String name) {
+
+        for (BookField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+
+        throw new UnknownBookFieldException("Unknown book field: " + name);
+    }
+}
@@ -0,0 +1,6 @@
+package com.jefferson.books_jdbc.repository;
+
+public record BookFilter(String author, Integer publicationYear) {
+
+    public static final BookFilter NONE = new BookFilter(null, null);
+}
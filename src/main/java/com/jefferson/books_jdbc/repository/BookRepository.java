@@ -2,12 +2,26 @@ package com.jefferson.books_jdbc.repository;
 
 import com.jefferson.books_jdbc.model.Book;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface BookRepository {
 
     Optional<Book> getBookById(Long id);
+    Optional<Book> getBookById(Long id, Set<BookField> fields);
+    Optional<Long> getVersionById(Long id);
+    List<Book> getBooksByIds(Collection<Long> ids);
+    List<Book> getBooksByIds(Collection<Long> ids, Set<BookField> fields);
+    List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter);
+    List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter, Set<BookField> fields);
+    long streamBooks(Consumer<Book> consumer);
     Book createNewBook(Book book);
+    List<Book> createBooks(List<Book> books);
     Optional<Book> updateBookInfo(Book book);
+    Optional<Book> updateBookFields(Book book, Set<BookField> fields);
+    int updateBooks(List<Book> books, Set<BookField> fields);
     boolean deleteBookById(Long id);
 }
@@ -1,64 +1,332 @@
 package com.jefferson.books_jdbc.repository;
 
+import com.jefferson.books_jdbc.exception.BookVersionConflictException;
 import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepositoryMetrics.Operation;
+import com.jefferson.books_jdbc.repository.BookRepositoryMetrics.Outcome;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
+//Reads are marked read-only without opening a transaction (SUPPORTS), which costs no extra round trips
+//and lets a read/write routing datasource send them to a replica
 @Repository
 public class BookRepositoryImpl implements BookRepository {
 
+    private static final Set<BookField> WRITABLE_FIELDS =
+            Collections.unmodifiableSet(EnumSet.of(BookField.TITLE, BookField.AUTHOR, BookField.PUBLICATION_YEAR));
+    private static final int WRITABLE_MASK = BookField.bits(WRITABLE_FIELDS);
+
+    private static final String INSERT_BOOK_SQL =
+            "INSERT INTO books (title, author, publication_year, version) VALUES (?, ?, ?, 0)";
+    private static final String INSERT_BOOK_WITH_ID_SQL =
+            "INSERT INTO books (title, author, publication_year, version, id) VALUES (?, ?, ?, 0, ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final BookRepositoryMetrics metrics;
+    private final int batchChunkSize;
+    private final int inChunkSize;
+    private final int streamFetchSize;
 
-    private final RowMapper<Book> bookRowMapper = (rs, rowNum) -> {
-        Book book = new Book();
-        book.setId(rs.getLong("id"));
-        book.setTitle(rs.getString("title"));
-        book.setAuthor(rs.getString("author"));
+    //One precompiled column list and ordinal row mapper per field combination, indexed by BookField.mask
+    private final Projection[] projections = new Projection[1 << BookField.values().length];
+    private final Projection fullProjection;
+    private final AtomicReferenceArray<String> updateStatements =
+            new AtomicReferenceArray<>(1 << (BookField.values().length + 2));
 
-        int year = rs.getInt("publication_year");
-        book.setPublicationYear(rs.wasNull() ? null : year);
+    private record Projection(String columns, RowMapper<Book> rowMapper) {
+    }
 
-        return book;
-    };
+    @FunctionalInterface
+    private interface ColumnReader {
+        void read(ResultSet resultSet, int columnIndex, Book book) throws SQLException;
+    }
 
     @Autowired
-    public BookRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    public BookRepositoryImpl(JdbcTemplate jdbcTemplate,
+                              BookRepositoryMetrics metrics,
+                              @Value("${books.batch.chunk-size:500}") int batchChunkSize,
+                              @Value("${books.query.in-chunk-size:1000}") int inChunkSize,
+                              @Value("${books.query.stream-fetch-size:1000}") int streamFetchSize) {
+        if (batchChunkSize <= 0) {
+            throw new IllegalArgumentException("books.batch.chunk-size must be positive: " + batchChunkSize);
+        }
+        if (inChunkSize <= 0) {
+            throw new IllegalArgumentException("books.query.in-chunk-size must be positive: " + inChunkSize);
+        }
         this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.batchChunkSize = batchChunkSize;
+        this.inChunkSize = inChunkSize;
+        this.streamFetchSize = streamFetchSize;
+
+        int requiredMask = BookField.mask(Set.of());
+        for (int mask = 0; mask < projections.length; mask++) {
+            if ((mask & requiredMask) == requiredMask) {
+                projections[mask] = compileProjection(mask);
+            }
+        }
+        this.fullProjection = projections[BookField.mask(BookField.ALL)];
+    }
+
+    private static Projection compileProjection(int mask) {
+
+        List<String> columns = new ArrayList<>();
+        List<ColumnReader> readers = new ArrayList<>();
+
+        for (BookField field : BookField.values()) {
+            if ((mask & 1 << field.ordinal()) == 0) {
+                continue;
+            }
+
+            columns.add(field.column());
+            readers.add(switch (field) {
+                case ID -> (resultSet, index, book) -> book.setId(resultSet.getLong(index));
+                case TITLE -> (resultSet, index, book) -> book.setTitle(resultSet.getString(index));
+                case AUTHOR -> (resultSet, index, book) -> book.setAuthor(resultSet.getString(index));
+                case PUBLICATION_YEAR -> (resultSet, index, book) -> {
+                    int year = resultSet.getInt(index);
+                    book.setPublicationYear(resultSet.wasNull() ? null : year);
+                };
+                case VERSION -> (resultSet, index, book) -> book.setVersion(resultSet.getLong(index));
+            });
+        }
+
+        ColumnReader[] columnReaders = readers.toArray(ColumnReader[]::new);
+        RowMapper<Book> rowMapper = (resultSet, rowNum) -> {
+            Book book = new Book();
+            for (int i = 0; i < columnReaders.length; i++) {
+                columnReaders[i].read(resultSet, i + 1, book);
+            }
+            return book;
+        };
+
+        return new Projection(String.join(", ", columns), rowMapper);
+    }
+
+    private Projection projection(Set<BookField> fields) {
+        return BookField.isAll(fields) ? fullProjection : projections[BookField.mask(fields)];
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Book> getBookById(Long id) {
 
+        return getBookById(id, BookField.ALL);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Book> getBookById(Long id, Set<BookField> fields) {
+
         if (id == null || id <= 0) {
             return Optional.empty();
         }
 
-        try {
-            Book book = jdbcTemplate.queryForObject("SELECT * FROM books WHERE id = ?", bookRowMapper, id);
-            return Optional.ofNullable(book);
-        } catch (EmptyResultDataAccessException e) {
+        Projection projection = projection(fields);
+
+        return metrics.time(Operation.GET_BY_ID, () -> queryBookById(id, projection),
+                book -> book.isPresent() ? Outcome.FOUND : Outcome.NOT_FOUND);
+    }
+
+    private Optional<Book> queryBookById(Long id, Projection projection) {
+
+        // A missing row is an ordinary outcome here, so it is read as an empty result rather than an exception
+        Book book = jdbcTemplate.query("SELECT " + projection.columns() + " FROM books WHERE id = ?",
+                resultSet -> resultSet.next() ? projection.rowMapper().mapRow(resultSet, 0) : null, id);
+
+        return Optional.ofNullable(book);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Long> getVersionById(Long id) {
+
+        if (id == null || id <= 0) {
             return Optional.empty();
         }
+
+        return metrics.time(Operation.GET_VERSION, () -> queryVersion(id),
+                version -> version.isPresent() ? Outcome.FOUND : Outcome.NOT_FOUND);
+    }
+
+    private Optional<Long> queryVersion(Long id) {
+
+        List<Long> versions = jdbcTemplate.queryForList("SELECT version FROM books WHERE id = ?", Long.class, id);
+
+        return versions.stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Book> getBooksByIds(Collection<Long> ids) {
+
+        return getBooksByIds(ids, BookField.ALL);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Book> getBooksByIds(Collection<Long> ids, Set<BookField> fields) {
+
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        Long[] validIds = ids.stream()
+                .filter(id -> id != null && id > 0)
+                .distinct()
+                .toArray(Long[]::new);
+
+        Projection projection = projection(fields);
+
+        List<Book> books = metrics.time(Operation.GET_BY_IDS, () -> queryBooksByIds(validIds, projection),
+                found -> found.size() == validIds.length ? Outcome.FOUND : Outcome.NOT_FOUND);
+
+        metrics.recordRows(Operation.GET_BY_IDS, books.size());
+        return books;
+    }
+
+    private List<Book> queryBooksByIds(Long[] validIds, Projection projection) {
+
+        String sql = "SELECT " + projection.columns() + " FROM books WHERE id = ANY(?)";
+
+        List<Book> books = new ArrayList<>(validIds.length);
+
+        // One array-bound statement per chunk keeps a single cached plan regardless of how many ids are asked for
+        for (int from = 0; from < validIds.length; from += inChunkSize) {
+            Long[] chunk = Arrays.copyOfRange(validIds, from, Math.min(from + inChunkSize, validIds.length));
+
+            books.addAll(jdbcTemplate.query(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+                preparedStatement.setArray(1, connection.createArrayOf("BIGINT", chunk));
+                return preparedStatement;
+            }, projection.rowMapper()));
+        }
+
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter) {
+
+        return getBooksAfter(afterId, limit, filter, BookField.ALL);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter, Set<BookField> fields) {
+
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        Projection projection = projection(fields);
+
+        // Seeking past the last seen id walks the (filter, id) index instead of skipping rows like OFFSET does
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection.columns()).append(" FROM books WHERE id > ?");
+        List<Object> args = new ArrayList<>(4);
+        args.add(afterId == null ? 0L : afterId);
+
+        if (filter != null && filter.author() != null) {
+            sql.append(" AND author = ?");
+            args.add(filter.author());
+        }
+        if (filter != null && filter.publicationYear() != null) {
+            sql.append(" AND publication_year = ?");
+            args.add(filter.publicationYear());
+        }
+
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+
+        List<Book> books = metrics.time(Operation.GET_PAGE,
+                () -> jdbcTemplate.query(sql.toString(), projection.rowMapper(), args.toArray()),
+                page -> Outcome.SUCCESS);
+
+        metrics.recordRows(Operation.GET_PAGE, books.size());
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public long streamBooks(Consumer<Book> consumer) {
+
+        long rows = metrics.time(Operation.STREAM, () -> queryAllBooks(consumer), count -> Outcome.SUCCESS);
+
+        metrics.recordRows(Operation.STREAM, rows);
+        return rows;
+    }
+
+    private long queryAllBooks(Consumer<Book> consumer) {
+
+        long[] rowNum = {0};
+
+        // Rows are handed to the consumer as they are read, so memory does not grow with the table
+        jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                    "SELECT " + fullProjection.columns() + " FROM books ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY
+            );
+
+            preparedStatement.setFetchSize(streamFetchSize);
+            return preparedStatement;
+        }, resultSet -> {
+            consumer.accept(fullProjection.rowMapper().mapRow(resultSet, (int) rowNum[0]));
+            rowNum[0]++;
+        });
+
+        return rowNum[0];
     }
 
     @Override
     public Book createNewBook(Book book) {
 
+        return metrics.time(Operation.CREATE, () -> insertBook(book), created -> Outcome.SUCCESS);
+    }
+
+    // A caller-assigned id (the sharded repository hands these out) is written as is; otherwise the identity column picks one
+    private Book insertBook(Book book) {
+
+        if (book.getId() != null) {
+            jdbcTemplate.update(INSERT_BOOK_WITH_ID_SQL,
+                    book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getId());
+            book.setVersion(0L);
+            return book;
+        }
+
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(connection -> {
             PreparedStatement preparedStatement = connection.prepareStatement(
-                    "INSERT INTO books (title, author, publication_year) VALUES (?, ?, ?)",
+                    INSERT_BOOK_SQL,
                     Statement.RETURN_GENERATED_KEYS
             );
 
@@ -70,32 +338,233 @@ public class BookRepositoryImpl implements BookRepository {
         }, keyHolder);
 
         book.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        book.setVersion(0L);
         return book;
     }
 
+    //One transaction for all chunks, so a failed chunk leaves none of the batch behind
+    @Override
+    @Transactional
+    public List<Book> createBooks(List<Book> books) {
+
+        if (books == null || books.isEmpty()) {
+            return List.of();
+        }
+
+        boolean assignedIds = books.get(0).getId() != null;
+        if (books.stream().anyMatch(book -> (book.getId() != null) != assignedIds)) {
+            throw new IllegalArgumentException("Either every book in a batch carries an id or none does");
+        }
+
+        for (int from = 0; from < books.size(); from += batchChunkSize) {
+            List<Book> chunk = books.subList(from, Math.min(from + batchChunkSize, books.size()));
+            metrics.time(Operation.CREATE_BATCH,
+                    () -> assignedIds ? insertChunkWithIds(chunk) : insertChunk(chunk), inserted -> Outcome.SUCCESS);
+        }
+
+        metrics.recordRows(Operation.CREATE_BATCH, books.size());
+        return books;
+    }
+
+    private List<Book> insertChunk(List<Book> chunk) {
+
+        KeyHolder keyHolder = new GeneratedKeyHolder(new ArrayList<>(chunk.size()));
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_BOOK_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                        Book book = chunk.get(i);
+                        preparedStatement.setString(1, book.getTitle());
+                        preparedStatement.setString(2, book.getAuthor());
+                        preparedStatement.setObject(3, book.getPublicationYear());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != chunk.size()) {
+            throw new DataRetrievalFailureException(
+                    "Expected " + chunk.size() + " generated keys but got " + keys.size());
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Number id = (Number) keys.get(i).values().iterator().next();
+            chunk.get(i).setId(id.longValue());
+            chunk.get(i).setVersion(0L);
+        }
+
+        return chunk;
+    }
+
+    private List<Book> insertChunkWithIds(List<Book> chunk) {
+
+        jdbcTemplate.batchUpdate(INSERT_BOOK_WITH_ID_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                Book book = chunk.get(i);
+                preparedStatement.setString(1, book.getTitle());
+                preparedStatement.setString(2, book.getAuthor());
+                preparedStatement.setObject(3, book.getPublicationYear());
+                preparedStatement.setLong(4, book.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+
+        chunk.forEach(book -> book.setVersion(0L));
+        return chunk;
+    }
+
     @Override
     public Optional<Book> updateBookInfo(Book book) {
 
+        return updateBookFields(book, WRITABLE_FIELDS);
+    }
+
+    @Override
+    public Optional<Book> updateBookFields(Book book, Set<BookField> fields) {
+
         if(book == null) {
             return Optional.empty();
         }
 
-        int affectedRows = jdbcTemplate.update(connection -> {
-            PreparedStatement preparedStatement = connection.prepareStatement(
-                    "UPDATE books SET title = ?, author = ?, publication_year = ? WHERE id = ?"
-            );
+        int mask = BookField.mask(fields) & WRITABLE_MASK;
+        if (mask == 0) {
+            throw new IllegalArgumentException("No writable book fields to update: " + fields);
+        }
 
-            preparedStatement.setString(1, book.getTitle());
-            preparedStatement.setString(2, book.getAuthor());
-            preparedStatement.setObject(3, book.getPublicationYear());
-            preparedStatement.setLong(4, book.getId());
+        UpdateResult result = metrics.time(Operation.UPDATE, () -> updateBook(book, mask), UpdateResult::outcome);
+
+        if (result == UpdateResult.CONFLICT) {
+            throw new BookVersionConflictException(book.getId(), book.getVersion());
+        }
+        if (result.version().isEmpty()) {
+            return Optional.empty();
+        }
+
+        book.setVersion(result.version().get());
+        return Optional.of(book);
+    }
+
+    private record UpdateResult(Optional<Long> version, Outcome outcome) {
+
+        static final UpdateResult NOT_FOUND = new UpdateResult(Optional.empty(), Outcome.NOT_FOUND);
+        static final UpdateResult CONFLICT = new UpdateResult(Optional.empty(), Outcome.CONFLICT);
+    }
+
+    // The data change delta table hands back the bumped version from the same statement, so no re-read can race.
+    // A version-checked update that matched nothing looks the row up, so the outcome is known before the timer stops
+    private UpdateResult updateBook(Book book, int mask) {
 
+        boolean checkVersion = book.getVersion() != null;
+        String sql = updateSql(mask, checkVersion, true);
+
+        List<Long> versions = jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+            bindUpdate(preparedStatement, book, mask, checkVersion);
             return preparedStatement;
-        });
+        }, (resultSet, rowNum) -> resultSet.getLong(1));
+
+        if (!versions.isEmpty()) {
+            return new UpdateResult(Optional.of(versions.get(0)), Outcome.FOUND);
+        }
 
-        if(affectedRows == 0) return Optional.empty();
+        return checkVersion && queryVersion(book.getId()).isPresent() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+    }
 
-        return Optional.of(book);
+    @Override
+    public int updateBooks(List<Book> books, Set<BookField> fields) {
+
+        if (books == null || books.isEmpty()) {
+            return 0;
+        }
+
+        int mask = BookField.mask(fields) & WRITABLE_MASK;
+        if (mask == 0) {
+            throw new IllegalArgumentException("No writable book fields to update: " + fields);
+        }
+
+        String sql = updateSql(mask, false, false);
+        int updated = 0;
+
+        for (int from = 0; from < books.size(); from += batchChunkSize) {
+            List<Book> chunk = books.subList(from, Math.min(from + batchChunkSize, books.size()));
+
+            int[] rows = metrics.time(Operation.UPDATE_BATCH, () -> jdbcTemplate.batchUpdate(sql,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                            bindUpdate(preparedStatement, chunk.get(i), mask, false);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }), result -> Outcome.SUCCESS);
+
+            for (int row : rows) {
+                updated += Math.max(row, 0);
+            }
+        }
+
+        metrics.recordRows(Operation.UPDATE_BATCH, updated);
+        return updated;
+    }
+
+    private static void bindUpdate(PreparedStatement preparedStatement, Book book, int mask, boolean checkVersion)
+            throws SQLException {
+
+        int index = 1;
+        if ((mask & 1 << BookField.TITLE.ordinal()) != 0) {
+            preparedStatement.setString(index++, book.getTitle());
+        }
+        if ((mask & 1 << BookField.AUTHOR.ordinal()) != 0) {
+            preparedStatement.setString(index++, book.getAuthor());
+        }
+        if ((mask & 1 << BookField.PUBLICATION_YEAR.ordinal()) != 0) {
+            preparedStatement.setObject(index++, book.getPublicationYear());
+        }
+        preparedStatement.setLong(index++, book.getId());
+        if (checkVersion) {
+            preparedStatement.setLong(index, book.getVersion());
+        }
+    }
+
+    //Generated UPDATE statements are cached per (column set, version check, returning); the key space is fixed,
+    //so the cache is bounded
+    private String updateSql(int mask, boolean checkVersion, boolean returningVersion) {
+
+        int key = mask << 2 | (checkVersion ? 2 : 0) | (returningVersion ? 1 : 0);
+        String sql = updateStatements.get(key);
+        if (sql != null) {
+            return sql;
+        }
+
+        StringBuilder builder = new StringBuilder("UPDATE books SET ");
+        for (BookField field : BookField.values()) {
+            if ((mask & 1 << field.ordinal()) != 0) {
+                builder.append(field.column()).append(" = ?, ");
+            }
+        }
+        builder.append("version = version + 1 WHERE id = ?");
+        if (checkVersion) {
+            builder.append(" AND version = ?");
+        }
+
+        sql = returningVersion ? "SELECT version FROM FINAL TABLE (" + builder + ")" : builder.toString();
+        updateStatements.set(key, sql);
+        return sql;
     }
 
     @Override
@@ -103,7 +572,15 @@ public class BookRepositoryImpl implements BookRepository {
 
         if(id == null || id < 0) return false;
 
-        int affectedRows = jdbcTemplate.update(con -> {
+        int affectedRows = metrics.time(Operation.DELETE, () -> deleteBook(id),
+                rows -> rows == 0 ? Outcome.NOT_FOUND : Outcome.FOUND);
+
+        return affectedRows > 0;
+    }
+
+    private int deleteBook(Long id) {
+
+        return jdbcTemplate.update(con -> {
             PreparedStatement preparedStatement = con.prepareStatement(
                     "DELETE FROM books WHERE id = ?"
             );
@@ -111,8 +588,6 @@ public class BookRepositoryImpl implements BookRepository {
             preparedStatement.setLong(1, id);
             return preparedStatement;
         });
-
-        return affectedRows > 0;
     }
 
 }
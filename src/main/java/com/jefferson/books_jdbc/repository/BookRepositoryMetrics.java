@@ -0,0 +1,107 @@
+package com.jefferson.books_jdbc.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//Per-statement timers and row counts for BookRepositoryImpl.
+//Meters are looked up by ordinal, so recording is a couple of array reads and atomic adds. Statement timers carry
+//percentile histograms, so each (operation, outcome) pair is registered on first use: pairs that never occur,
+//such as a create that finds nothing, never become series.
+@Component
+public class BookRepositoryMetrics {
+
+    public enum Operation {
+        GET_BY_ID, GET_VERSION, GET_BY_IDS, GET_PAGE, STREAM, CREATE, CREATE_BATCH, UPDATE, UPDATE_BATCH, DELETE;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    public enum Outcome {
+        SUCCESS, FOUND, NOT_FOUND, CONFLICT, INVALID, ERROR;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    private static final int OUTCOMES = Outcome.values().length;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicReferenceArray<Timer> timers;
+    private final DistributionSummary[] rows;
+
+    @Autowired
+    public BookRepositoryMetrics(MeterRegistry meterRegistry) {
+
+        Operation[] operations = Operation.values();
+
+        this.meterRegistry = meterRegistry;
+        timers = new AtomicReferenceArray<>(operations.length * OUTCOMES);
+        rows = new DistributionSummary[operations.length];
+
+        for (Operation operation : operations) {
+            rows[operation.ordinal()] = DistributionSummary.builder("books.repository.rows")
+                    .description("Rows read or written per BookRepository call")
+                    .baseUnit("rows")
+                    .tag("operation", operation.tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> T time(Operation operation, Supplier<T> statement, Function<T, Outcome> outcomeOf) {
+
+        long start = System.nanoTime();
+        T result;
+
+        try {
+            result = statement.get();
+        } catch (DuplicateKeyException e) {
+            record(operation, Outcome.CONFLICT, start);
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            // NOT NULL and CHECK failures are bad input, not a clash with another write
+            record(operation, Outcome.INVALID, start);
+            throw e;
+        } catch (RuntimeException e) {
+            record(operation, Outcome.ERROR, start);
+            throw e;
+        }
+
+        record(operation, outcomeOf.apply(result), start);
+        return result;
+    }
+
+    public void recordRows(Operation operation, long count) {
+        rows[operation.ordinal()].record(count);
+    }
+
+    private void record(Operation operation, Outcome outcome, long start) {
+        timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Racing first uses both register; the registry hands both the same timer
+    private Timer timer(Operation operation, Outcome outcome) {
+
+        int index = operation.ordinal() * OUTCOMES + outcome.ordinal();
+        Timer timer = timers.get(index);
+        if (timer == null) {
+            timer = Timer.builder("books.repository.statement")
+                    .description("Time spent in BookRepository statements")
+                    .tag("operation", operation.tag)
+                    .tag("outcome", outcome.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            timers.set(index, timer);
+        }
+
+        return timer;
+    }
+}
@@ -0,0 +1,277 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.model.Book;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Immutable column-per-field copy of the books table: ids sorted in a long[], years in an int[], and each author
+//stored once with rows pointing at it by index. A lookup is a binary search over the ids; no Book exists until
+//a row is read. Changes are folded in by merging a sorted change set into a new snapshot.
+final class ColumnarBookSnapshot {
+
+    static final ColumnarBookSnapshot EMPTY = new Builder(0).build();
+
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+
+    //Compressed-oops object layout used by the memory estimates
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private final int size;
+    private final long[] ids;
+    private final String[] titles;
+    private final int[] authorRefs;
+    private final int[] years;
+    private final long[] versions;
+    private final String[] authors;
+    private final Map<String, Integer> authorIndex;
+
+    private ColumnarBookSnapshot(int size, long[] ids, String[] titles, int[] authorRefs, int[] years, long[] versions,
+                                 String[] authors, Map<String, Integer> authorIndex) {
+        this.size = size;
+        this.ids = ids;
+        this.titles = titles;
+        this.authorRefs = authorRefs;
+        this.years = years;
+        this.versions = versions;
+        this.authors = authors;
+        this.authorIndex = authorIndex;
+    }
+
+    int size() {
+        return size;
+    }
+
+    //Index of the row with this id, or -(insertion point) - 1 like Arrays.binarySearch
+    int indexOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    long versionAt(int index) {
+        return versions[index];
+    }
+
+    Book bookAt(int index) {
+        return new Book(ids[index], titles[index], authors[authorRefs[index]],
+                years[index] == NO_YEAR ? null : years[index], versions[index]);
+    }
+
+    //Author and year are compared as ints, so a filtered scan never touches the strings
+    boolean matches(int index, int authorRef, Integer publicationYear) {
+        return (authorRef < 0 || authorRefs[index] == authorRef)
+                && (publicationYear == null || years[index] == publicationYear);
+    }
+
+    //-1 when no filter applies, -2 when the author has no books in this snapshot
+    int authorRef(String author) {
+        if (author == null) {
+            return -1;
+        }
+        return authorIndex.getOrDefault(author, -2);
+    }
+
+    //Changes are sorted by id; a null book removes the row
+    ColumnarBookSnapshot merge(long[] changedIds, Book[] changedBooks) {
+
+        Builder builder = new Builder(size + changedIds.length);
+        int base = 0;
+        int change = 0;
+
+        while (base < size || change < changedIds.length) {
+            if (change == changedIds.length || (base < size && ids[base] < changedIds[change])) {
+                builder.add(ids[base], titles[base], authors[authorRefs[base]], years[base], versions[base]);
+                base++;
+            } else {
+                if (base < size && ids[base] == changedIds[change]) {
+                    base++;
+                }
+                Book book = changedBooks[change++];
+                if (book != null) {
+                    builder.add(book);
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    SnapshotMemoryReport memoryReport() {
+
+        long snapshotBytes = array(8L * size) * 2 + array(4L * size) * 3
+                + array((long) REFERENCE * authors.length)
+                + hashMapBytes(authorIndex.size(), OBJECT_HEADER + 4);
+        for (int i = 0; i < size; i++) {
+            snapshotBytes += stringBytes(titles[i]);
+        }
+        for (String author : authors) {
+            snapshotBytes += stringBytes(author);
+        }
+
+        // The baseline is one Book per row in a HashMap<Long, Book>, each row holding its own author string;
+        // the Long key doubles as the Book's id and the version is a boxed Long
+        long hashMapBytes = hashMapBytes(size, align(OBJECT_HEADER + 8));
+        for (int i = 0; i < size; i++) {
+            hashMapBytes += align(OBJECT_HEADER + 5 * REFERENCE)
+                    + (years[i] == NO_YEAR ? 0 : align(OBJECT_HEADER + 4))
+                    + (versions[i] >= -128 && versions[i] <= 127 ? 0 : align(OBJECT_HEADER + 8))
+                    + stringBytes(titles[i])
+                    + stringBytes(authors[authorRefs[i]]);
+        }
+
+        return new SnapshotMemoryReport(size, authors.length, snapshotBytes, hashMapBytes);
+    }
+
+    //Table, nodes and keys of a HashMap at its default load factor; values are counted by the caller
+    private static long hashMapBytes(int entries, long keyBytes) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, (int) (entries / 0.75f)) * 2 - 1));
+        return align(OBJECT_HEADER + 4 * 4 + 2 * REFERENCE) + array((long) REFERENCE * capacity)
+                + entries * (align(OBJECT_HEADER + 4 + 3 * REFERENCE) + keyBytes);
+    }
+
+    private static long stringBytes(String value) {
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        return align(OBJECT_HEADER + 4 + 1 + 1 + REFERENCE) + array((long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long array(long payload) {
+        return align(ARRAY_HEADER + payload);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    //Rows may arrive in any id order; build() sorts them if they did not arrive sorted
+    static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private String[] titles;
+        private int[] authorRefs;
+        private int[] years;
+        private long[] versions;
+        private final Map<String, Integer> authorIndex = new HashMap<>();
+        private String[] authors = new String[16];
+        private boolean sorted = true;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new long[capacity];
+            titles = new String[capacity];
+            authorRefs = new int[capacity];
+            years = new int[capacity];
+            versions = new long[capacity];
+        }
+
+        Builder add(Book book) {
+            return add(book.getId(), book.getTitle(), book.getAuthor(),
+                    book.getPublicationYear() == null ? NO_YEAR : book.getPublicationYear(),
+                    book.getVersion() == null ? 0L : book.getVersion());
+        }
+
+        private Builder add(long id, String title, String author, int year, long version) {
+
+            if (size == ids.length) {
+                grow();
+            }
+            if (size > 0 && id <= ids[size - 1]) {
+                sorted = false;
+            }
+
+            ids[size] = id;
+            titles[size] = title;
+            authorRefs[size] = authorRef(author);
+            years[size] = year;
+            versions[size] = version;
+            size++;
+
+            return this;
+        }
+
+        private int authorRef(String author) {
+            Integer ref = authorIndex.get(author);
+            if (ref == null) {
+                ref = authorIndex.size();
+                if (ref == authors.length) {
+                    authors = Arrays.copyOf(authors, ref * 2);
+                }
+                authors[ref] = author;
+                authorIndex.put(author, ref);
+            }
+            return ref;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            authorRefs = Arrays.copyOf(authorRefs, capacity);
+            years = Arrays.copyOf(years, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+
+        ColumnarBookSnapshot build() {
+
+            if (!sorted) {
+                sortById();
+            }
+
+            // Trimmed to size, so the snapshot holds no spare capacity
+            return new ColumnarBookSnapshot(size, Arrays.copyOf(ids, size), Arrays.copyOf(titles, size),
+                    Arrays.copyOf(authorRefs, size), Arrays.copyOf(years, size), Arrays.copyOf(versions, size),
+                    Arrays.copyOf(authors, authorIndex.size()), Map.copyOf(authorIndex));
+        }
+
+        private void sortById() {
+
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+
+            long[] sortedIds = new long[size];
+            String[] sortedTitles = new String[size];
+            int[] sortedAuthorRefs = new int[size];
+            int[] sortedYears = new int[size];
+            long[] sortedVersions = new long[size];
+
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int row = order[i];
+                // A repeated id keeps the row added last
+                if (kept > 0 && sortedIds[kept - 1] == ids[row]) {
+                    kept--;
+                }
+                sortedIds[kept] = ids[row];
+                sortedTitles[kept] = titles[row];
+                sortedAuthorRefs[kept] = authorRefs[row];
+                sortedYears[kept] = years[row];
+                sortedVersions[kept] = versions[row];
+                kept++;
+            }
+
+            ids = sortedIds;
+            titles = sortedTitles;
+            authorRefs = sortedAuthorRefs;
+            years = sortedYears;
+            versions = sortedVersions;
+            size = kept;
+            sorted = true;
+        }
+    }
+
+    static ColumnarBookSnapshot of(List<Book> books) {
+        Builder builder = new Builder(books.size());
+        books.forEach(builder::add);
+        return builder.build();
+    }
+}
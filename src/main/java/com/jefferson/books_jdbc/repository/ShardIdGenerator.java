@@ -0,0 +1,96 @@
+package com.jefferson.books_jdbc.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Ids are local * shardCount + shard, so the owning shard is id mod shardCount and two shards can never hand out
+//the same id. Each shard's local numbers come from its own sequence, reserved a block at a time so most ids
+//cost no round trip. A block is as wide as the sequence's actual increment, read from each shard at startup,
+//since an existing sequence keeps its increment when id-block-size changes.
+@Slf4j
+public class ShardIdGenerator {
+
+    static final String SEQUENCE_NAME = "books_shard_id_seq";
+
+    private final JdbcTemplate[] shards;
+    private final long[] blockSizes;
+    private final long[] next;
+    private final long[] limit;
+    //A refill holds its shard's lock across a query; a ReentrantLock parks a virtual thread there instead of pinning it
+    private final ReentrantLock[] locks;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public ShardIdGenerator(List<JdbcTemplate> shards, int blockSize) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("books.sharding.id-block-size must be positive: " + blockSize);
+        }
+        this.shards = shards.toArray(JdbcTemplate[]::new);
+        this.blockSizes = new long[shards.size()];
+        this.next = new long[shards.size()];
+        this.limit = new long[shards.size()];
+        this.locks = new ReentrantLock[shards.size()];
+
+        for (int shard = 0; shard < this.shards.length; shard++) {
+            locks[shard] = new ReentrantLock();
+            blockSizes[shard] = sequenceIncrement(this.shards[shard]);
+            if (blockSizes[shard] != blockSize) {
+                log.warn("Shard {} id sequence steps by {}, not the configured id-block-size {}; using {}",
+                        shard, blockSizes[shard], blockSize, blockSizes[shard]);
+            }
+        }
+    }
+
+    private static long sequenceIncrement(JdbcTemplate shard) {
+
+        Long increment = shard.queryForObject(
+                "SELECT CAST(INCREMENT AS BIGINT) FROM INFORMATION_SCHEMA.SEQUENCES"
+                        + " WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND SEQUENCE_NAME = ?",
+                Long.class, SEQUENCE_NAME.toUpperCase(Locale.ROOT));
+        if (increment == null || increment <= 0) {
+            throw new IllegalStateException(SEQUENCE_NAME + " must step by a positive increment: " + increment);
+        }
+
+        return increment;
+    }
+
+    //The sequence steps by the block size, so each NEXT VALUE reserves [value, value + blockSize)
+    public static String createSequenceSql(int blockSize) {
+        return "CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME + " START WITH 1 INCREMENT BY " + blockSize;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) shards.length);
+    }
+
+    //Spreads new books evenly across shards
+    public int nextShard() {
+        return Math.floorMod(roundRobin.getAndIncrement(), shards.length);
+    }
+
+    public long nextId(int shard) {
+
+        locks[shard].lock();
+        try {
+            if (next[shard] == limit[shard]) {
+                Long start = shards[shard].queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE_NAME, Long.class);
+                next[shard] = start;
+                limit[shard] = start + blockSizes[shard];
+            }
+            return next[shard]++ * shards.length + shard;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//Spreads books over several databases by id. Anything keyed by one id goes to exactly one shard; multi-row
+//reads and batch writes fan out to the shards involved in parallel and are merged here. Each shard's part of a
+//batch is atomic, but there is no transaction spanning shards, so a batch can land on some shards and fail on others.
+@Slf4j
+public class ShardedBookRepository implements BookRepository, AutoCloseable {
+
+    private final List<BookRepository> shards;
+    private final ShardIdGenerator idGenerator;
+    private final List<? extends AutoCloseable> resources;
+    private final ExecutorService scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedBookRepository(List<BookRepository> shards, ShardIdGenerator idGenerator,
+                                 List<? extends AutoCloseable> resources) {
+        if (shards.size() != idGenerator.shardCount()) {
+            throw new IllegalArgumentException("Id generator covers " + idGenerator.shardCount()
+                    + " shards but " + shards.size() + " were given");
+        }
+        this.shards = List.copyOf(shards);
+        this.idGenerator = idGenerator;
+        this.resources = resources;
+    }
+
+    //Shards are built outside the application context, so nothing applies BookRepositoryImpl's @Transactional.
+    //This proxy does, with a transaction manager of the shard's own pool.
+    public static BookRepository transactional(BookRepositoryImpl shard, DataSource dataSource) {
+
+        ProxyFactory proxyFactory = new ProxyFactory(shard);
+        proxyFactory.setInterfaces(BookRepository.class);
+        proxyFactory.addAdvice(new TransactionInterceptor((TransactionManager) new DataSourceTransactionManager(dataSource),
+                new AnnotationTransactionAttributeSource()));
+
+        return (BookRepository) proxyFactory.getProxy();
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public Optional<Book> getBookById(Long id) {
+        return id == null || id <= 0 ? Optional.empty() : shardFor(id).getBookById(id);
+    }
+
+    @Override
+    public Optional<Book> getBookById(Long id, Set<BookField> fields) {
+        return id == null || id <= 0 ? Optional.empty() : shardFor(id).getBookById(id, fields);
+    }
+
+    @Override
+    public Optional<Long> getVersionById(Long id) {
+        return id == null || id <= 0 ? Optional.empty() : shardFor(id).getVersionById(id);
+    }
+
+    @Override
+    public List<Book> getBooksByIds(Collection<Long> ids) {
+        return getBooksByIds(ids, BookField.ALL);
+    }
+
+    @Override
+    public List<Book> getBooksByIds(Collection<Long> ids, Set<BookField> fields) {
+
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<List<Long>> idsByShard = partition(ids.stream().filter(id -> id != null && id > 0).toList(), id -> id);
+
+        return scatter(idsByShard, (shard, shardIds) -> shard.getBooksByIds(shardIds, fields));
+    }
+
+    // Ids are global, so the first page after a cursor is the smallest ids among every shard's own first page
+    @Override
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter) {
+        return getBooksAfter(afterId, limit, filter, BookField.ALL);
+    }
+
+    @Override
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter, Set<BookField> fields) {
+
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        List<Book> books = new ArrayList<>(broadcast(shard -> shard.getBooksAfter(afterId, limit, filter, fields)));
+        books.sort(Comparator.comparing(Book::getId));
+
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+    // Shards are streamed one after another so the consumer is never called concurrently; ids are ordered per shard
+    @Override
+    public long streamBooks(Consumer<Book> consumer) {
+
+        long rows = 0;
+        for (BookRepository shard : shards) {
+            rows += shard.streamBooks(consumer);
+        }
+        return rows;
+    }
+
+    @Override
+    public Book createNewBook(Book book) {
+
+        int shard = idGenerator.nextShard();
+        book.setId(idGenerator.nextId(shard));
+
+        return shards.get(shard).createNewBook(book);
+    }
+
+    @Override
+    public List<Book> createBooks(List<Book> books) {
+
+        if (books == null || books.isEmpty()) {
+            return List.of();
+        }
+
+        for (Book book : books) {
+            book.setId(idGenerator.nextId(idGenerator.nextShard()));
+        }
+
+        scatter(partition(books, Book::getId), BookRepository::createBooks);
+        return books;
+    }
+
+    @Override
+    public Optional<Book> updateBookInfo(Book book) {
+        return book == null ? Optional.empty() : shardFor(book.getId()).updateBookInfo(book);
+    }
+
+    @Override
+    public Optional<Book> updateBookFields(Book book, Set<BookField> fields) {
+        return book == null ? Optional.empty() : shardFor(book.getId()).updateBookFields(book, fields);
+    }
+
+    @Override
+    public int updateBooks(List<Book> books, Set<BookField> fields) {
+
+        if (books == null || books.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> updated = scatter(partition(books, Book::getId),
+                (shard, shardBooks) -> List.of(shard.updateBooks(shardBooks, fields)));
+
+        return updated.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public boolean deleteBookById(Long id) {
+        return id != null && id > 0 && shardFor(id).deleteBookById(id);
+    }
+
+    private BookRepository shardFor(long id) {
+        return shards.get(idGenerator.shardOf(id));
+    }
+
+    private <T> List<List<T>> partition(List<T> items, Function<T, Long> idOf) {
+
+        List<List<T>> byShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            byShard.get(idGenerator.shardOf(idOf.apply(item))).add(item);
+        }
+
+        return byShard;
+    }
+
+    @FunctionalInterface
+    private interface ShardCall<I, R> {
+        List<R> apply(BookRepository shard, List<I> input);
+    }
+
+    //Runs the call on every shard with work, in parallel, and concatenates the results in shard order
+    private <I, R> List<R> scatter(List<List<I>> inputByShard, ShardCall<I, R> call) {
+
+        List<CompletableFuture<List<R>>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            List<I> input = inputByShard.get(i);
+            if (!input.isEmpty()) {
+                BookRepository shard = shards.get(i);
+                futures.add(CompletableFuture.supplyAsync(() -> call.apply(shard, input), scatterExecutor));
+            }
+        }
+
+        return join(futures);
+    }
+
+    private <R> List<R> broadcast(Function<BookRepository, List<R>> call) {
+
+        List<CompletableFuture<List<R>>> futures = new ArrayList<>(shards.size());
+        for (BookRepository shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(shard), scatterExecutor));
+        }
+
+        return join(futures);
+    }
+
+    private static <R> List<R> join(List<CompletableFuture<List<R>>> futures) {
+
+        List<R> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<R>> future : futures) {
+                results.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        return results;
+    }
+
+    @Override
+    public void close() {
+
+        scatterExecutor.shutdown();
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Closing shard resource failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.model.Book;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+//Read-serving mode: the whole table is held as a ColumnarBookSnapshot and reads never reach the database.
+//Writes go to the table first and then into a small overlay of changed rows that reads check before the
+//snapshot; once the overlay grows past compact-threshold it is merged into a new snapshot. An optional
+//periodic reload picks up rows written by other instances. Until the first load completes reads use the table.
+@Slf4j
+@Primary
+@Repository
+@ConditionalOnProperty(name = "books.snapshot.enabled", havingValue = "true")
+public class SnapshotBookRepository implements BookRepository {
+
+    // Overlay marker for a deleted row
+    private static final Book DELETED = new Book();
+
+    private final BookRepository delegate;
+    private final int compactThreshold;
+    private final Duration refreshInterval;
+    private final ConcurrentHashMap<Long, Book> overlay = new ConcurrentHashMap<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ScheduledExecutorService loader;
+
+    private volatile ColumnarBookSnapshot snapshot = ColumnarBookSnapshot.EMPTY;
+    private volatile boolean loaded;
+
+    @Autowired
+    public SnapshotBookRepository(BookRepositoryImpl delegate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${books.snapshot.compact-threshold:1024}") int compactThreshold,
+                                  @Value("${books.snapshot.refresh-interval:0}") Duration refreshInterval) {
+        if (compactThreshold <= 0) {
+            throw new IllegalArgumentException("books.snapshot.compact-threshold must be positive: " + compactThreshold);
+        }
+        this.delegate = delegate;
+        this.compactThreshold = compactThreshold;
+        this.refreshInterval = refreshInterval;
+
+        this.loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-snapshot-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("books.snapshot.books", this, repository -> repository.snapshot.size())
+                .register(meterRegistry);
+        Gauge.builder("books.snapshot.overlay", overlay, Map::size)
+                .description("Rows changed since the snapshot was last rebuilt")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+
+        loader.execute(this::reloadQuietly);
+        if (refreshInterval.isPositive()) {
+            loader.scheduleWithFixedDelay(this::reloadQuietly,
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //Streams the table into a fresh snapshot. Overlay rows present before the stream started are in the table,
+    //so they are dropped afterwards unless a newer write replaced them meanwhile.
+    public void reload() {
+
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Map<Long, Book> written = new HashMap<>(overlay);
+
+            ColumnarBookSnapshot.Builder builder = new ColumnarBookSnapshot.Builder(snapshot.size());
+            delegate.streamBooks(builder::add);
+            snapshot = builder.build();
+            loaded = true;
+
+            written.forEach(overlay::remove);
+
+            SnapshotMemoryReport report = snapshot.memoryReport();
+            log.info("Book snapshot loaded {} books in {} ms: {} bytes per book, {} as HashMap<Long, Book>",
+                    report.books(), (System.nanoTime() - start) / 1_000_000,
+                    Math.round(report.snapshotBytesPerBook()), Math.round(report.hashMapBytesPerBook()));
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int overlaySize() {
+        return overlay.size();
+    }
+
+    public SnapshotMemoryReport memoryReport() {
+        return snapshot.memoryReport();
+    }
+
+    @Override
+    public Optional<Book> getBookById(Long id) {
+
+        if (!loaded) {
+            return delegate.getBookById(id);
+        }
+
+        return id == null ? Optional.empty() : Optional.ofNullable(lookup(id));
+    }
+
+    @Override
+    public Optional<Book> getBookById(Long id, Set<BookField> fields) {
+
+        if (!loaded) {
+            return delegate.getBookById(id, fields);
+        }
+
+        return getBookById(id).map(book -> project(book, fields));
+    }
+
+    @Override
+    public Optional<Long> getVersionById(Long id) {
+
+        if (!loaded) {
+            return delegate.getVersionById(id);
+        }
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        Book changed = overlay.get(id);
+        if (changed != null) {
+            return changed == DELETED ? Optional.empty() : Optional.of(changed.getVersion());
+        }
+
+        ColumnarBookSnapshot current = snapshot;
+        int index = current.indexOf(id);
+        return index >= 0 ? Optional.of(current.versionAt(index)) : Optional.empty();
+    }
+
+    @Override
+    public List<Book> getBooksByIds(Collection<Long> ids) {
+        return getBooksByIds(ids, BookField.ALL);
+    }
+
+    @Override
+    public List<Book> getBooksByIds(Collection<Long> ids, Set<BookField> fields) {
+
+        if (!loaded) {
+            return delegate.getBooksByIds(ids, fields);
+        }
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Book book = id == null ? null : lookup(id);
+            if (book != null) {
+                books.add(project(book, fields));
+            }
+        }
+
+        return books;
+    }
+
+    @Override
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter) {
+        return getBooksAfter(afterId, limit, filter, BookField.ALL);
+    }
+
+    //Walks the snapshot from the cursor skipping rows the overlay replaced, then merges the overlay's own
+    //matches in id order
+    @Override
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter, Set<BookField> fields) {
+
+        if (!loaded) {
+            return delegate.getBooksAfter(afterId, limit, filter, fields);
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        long after = afterId == null ? 0L : afterId;
+        String author = filter == null ? null : filter.author();
+        Integer publicationYear = filter == null ? null : filter.publicationYear();
+
+        List<Book> changed = new ArrayList<>();
+        overlay.forEach((id, book) -> {
+            if (id > after && book != DELETED && matches(book, author, publicationYear)) {
+                changed.add(book);
+            }
+        });
+        changed.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        ColumnarBookSnapshot current = snapshot;
+        int authorRef = current.authorRef(author);
+        List<Book> page = new ArrayList<>(Math.min(limit, 1_000));
+        int next = current.indexOf(after);
+        next = next >= 0 ? next + 1 : -next - 1;
+        int nextChanged = 0;
+
+        while (page.size() < limit) {
+            // An author missing from the snapshot can only match overlay rows
+            while (authorRef != -2 && next < current.size()
+                    && (overlay.containsKey(current.idAt(next)) || !current.matches(next, authorRef, publicationYear))) {
+                next++;
+            }
+
+            boolean snapshotLeft = authorRef != -2 && next < current.size();
+            boolean changedLeft = nextChanged < changed.size();
+            if (!snapshotLeft && !changedLeft) {
+                break;
+            }
+
+            if (changedLeft && (!snapshotLeft || changed.get(nextChanged).getId() < current.idAt(next))) {
+                page.add(project(copy(changed.get(nextChanged++)), fields));
+            } else {
+                page.add(project(current.bookAt(next++), fields));
+            }
+        }
+
+        return page;
+    }
+
+    // Streams the table itself: exports and index builds want the stored rows, not this instance's copy
+    @Override
+    public long streamBooks(Consumer<Book> consumer) {
+        return delegate.streamBooks(consumer);
+    }
+
+    @Override
+    public Book createNewBook(Book book) {
+
+        Book created = delegate.createNewBook(book);
+        record(created);
+
+        return created;
+    }
+
+    @Override
+    public List<Book> createBooks(List<Book> books) {
+
+        List<Book> created = delegate.createBooks(books);
+        created.forEach(this::record);
+
+        return created;
+    }
+
+    @Override
+    public Optional<Book> updateBookInfo(Book book) {
+
+        Optional<Book> updated = delegate.updateBookInfo(book);
+        updated.ifPresent(this::record);
+
+        return updated;
+    }
+
+    //The delegate returns only the written columns' values, so the rest of the row comes from this copy
+    @Override
+    public Optional<Book> updateBookFields(Book book, Set<BookField> fields) {
+
+        Optional<Book> updated = delegate.updateBookFields(book, fields);
+        updated.ifPresent(written -> {
+            Book current = loaded ? lookup(written.getId()) : null;
+            if (current == null) {
+                delegate.getBookById(written.getId()).ifPresent(this::record);
+                return;
+            }
+            for (BookField field : fields) {
+                switch (field) {
+                    case TITLE -> current.setTitle(written.getTitle());
+                    case AUTHOR -> current.setAuthor(written.getAuthor());
+                    case PUBLICATION_YEAR -> current.setPublicationYear(written.getPublicationYear());
+                    default -> {
+                    }
+                }
+            }
+            current.setVersion(written.getVersion());
+            record(current);
+        });
+
+        return updated;
+    }
+
+    // A batch update does not return the new versions, so the changed rows are read back
+    @Override
+    public int updateBooks(List<Book> books, Set<BookField> fields) {
+
+        int updated = delegate.updateBooks(books, fields);
+        if (updated > 0) {
+            delegate.getBooksByIds(books.stream().map(Book::getId).toList()).forEach(this::record);
+        }
+
+        return updated;
+    }
+
+    @Override
+    public boolean deleteBookById(Long id) {
+
+        boolean deleted = delegate.deleteBookById(id);
+        if (deleted) {
+            overlay.put(id, DELETED);
+            compactIfNeeded();
+        }
+
+        return deleted;
+    }
+
+    //Writers racing on one id can record out of order, so a row only replaces an older version of itself.
+    //A delete is final, and a row older than the snapshot's (recorded after a compaction took its entry) is dropped
+    private void record(Book book) {
+
+        Book written = copy(book);
+        overlay.compute(book.getId(), (id, current) -> {
+            if (current == DELETED) {
+                return current;
+            }
+            Long knownVersion = current != null ? current.getVersion() : snapshotVersion(id);
+            boolean stale = knownVersion != null && written.getVersion() != null && knownVersion > written.getVersion();
+            return stale ? current : written;
+        });
+
+        compactIfNeeded();
+    }
+
+    private Long snapshotVersion(long id) {
+        ColumnarBookSnapshot current = snapshot;
+        int index = current.indexOf(id);
+        return index >= 0 ? current.versionAt(index) : null;
+    }
+
+    private Book lookup(long id) {
+
+        Book changed = overlay.get(id);
+        if (changed != null) {
+            return changed == DELETED ? null : copy(changed);
+        }
+
+        ColumnarBookSnapshot current = snapshot;
+        int index = current.indexOf(id);
+        return index >= 0 ? current.bookAt(index) : null;
+    }
+
+    //Merges the overlay into a new snapshot; whoever loses the race for the lock just leaves it to the winner
+    private void compactIfNeeded() {
+
+        if (!loaded || overlay.size() < compactThreshold || !rebuildLock.tryLock()) {
+            return;
+        }
+
+        try {
+            Map<Long, Book> changes = new HashMap<>(overlay);
+            long[] changedIds = changes.keySet().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(changedIds);
+
+            Book[] changedBooks = new Book[changedIds.length];
+            for (int i = 0; i < changedIds.length; i++) {
+                Book book = changes.get(changedIds[i]);
+                changedBooks[i] = book == DELETED ? null : book;
+            }
+
+            snapshot = snapshot.merge(changedIds, changedBooks);
+
+            // Rows rewritten while merging stay in the overlay for the next compaction
+            changes.forEach(overlay::remove);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Book snapshot load failed: {}", e.getMessage());
+        }
+    }
+
+    private static boolean matches(Book book, String author, Integer publicationYear) {
+        return (author == null || author.equals(book.getAuthor()))
+                && (publicationYear == null || publicationYear.equals(book.getPublicationYear()));
+    }
+
+    //Same shape as a projected query: unrequested columns are left null
+    private static Book project(Book book, Set<BookField> fields) {
+
+        if (BookField.isAll(fields)) {
+            return book;
+        }
+
+        return new Book(book.getId(),
+                fields.contains(BookField.TITLE) ? book.getTitle() : null,
+                fields.contains(BookField.AUTHOR) ? book.getAuthor() : null,
+                fields.contains(BookField.PUBLICATION_YEAR) ? book.getPublicationYear() : null,
+                book.getVersion());
+    }
+
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getVersion());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package com.jefferson.books_jdbc.repository;
+
+//Estimated heap held by the columnar snapshot next to what the same rows would take as a HashMap<Long, Book>
+public record SnapshotMemoryReport(int books, int authors, long snapshotBytes, long hashMapBytes) {
+
+    public double snapshotBytesPerBook() {
+        return books == 0 ? 0 : (double) snapshotBytes / books;
+    }
+
+    public double hashMapBytesPerBook() {
+        return books == 0 ? 0 : (double) hashMapBytes / books;
+    }
+}
@@ -0,0 +1,500 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.event.BooksFlushedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+//Write-behind mode for updates: unconditional updates are coalesced per book id (last write wins per column)
+//and flushed in JDBC batches on a size or time trigger. Reads overlay the buffered columns, so callers see
+//their own writes before they reach the table. Creates, deletes and version-checked updates stay synchronous.
+//A flush that fails puts its updates back (under anything newer) and is retried with backoff; only updates the
+//database rejects as invalid are dropped. Each landed batch is announced with BooksFlushedEvent, since it moved
+//the versions of books that may already be cached. Overlaid rows come back without a version until they land.
+@Slf4j
+@Primary
+@Repository
+@ConditionalOnProperty(name = "books.write-behind.enabled", havingValue = "true")
+public class WriteBehindBookRepository implements BookRepository {
+
+    private record PendingUpdate(Book book, EnumSet<BookField> fields) {
+
+        PendingUpdate mergedWith(PendingUpdate newer) {
+
+            Book merged = copy(book);
+            EnumSet<BookField> mergedFields = EnumSet.copyOf(fields);
+            mergedFields.addAll(newer.fields);
+
+            for (BookField field : newer.fields) {
+                switch (field) {
+                    case TITLE -> merged.setTitle(newer.book.getTitle());
+                    case AUTHOR -> merged.setAuthor(newer.book.getAuthor());
+                    case PUBLICATION_YEAR -> merged.setPublicationYear(newer.book.getPublicationYear());
+                    default -> {
+                    }
+                }
+            }
+
+            return new PendingUpdate(merged, mergedFields);
+        }
+    }
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final BookRepository delegate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int flushSize;
+    private final long flushIntervalMillis;
+    private final ConcurrentHashMap<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    //Updates taken out of pending whose batch has not committed yet; reads keep overlaying them until it has
+    private final ConcurrentHashMap<Long, PendingUpdate> inFlight = new ConcurrentHashMap<>();
+    //Bumped before an update leaves inFlight, landed or put back; see readOverlaid
+    private final AtomicLong bufferMoves = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final Counter buffered;
+    private final Counter flushed;
+    private final Counter retried;
+    private final Counter failed;
+
+    //Guarded by flushLock
+    private long backoffMillis;
+    private volatile long retryAtNanos;
+
+    @Autowired
+    public WriteBehindBookRepository(BookRepositoryImpl delegate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${books.write-behind.flush-size:500}") int flushSize,
+                                     @Value("${books.write-behind.flush-interval:100ms}") Duration flushInterval) {
+        this.delegate = delegate;
+        this.eventPublisher = eventPublisher;
+        this.flushSize = flushSize;
+        this.flushIntervalMillis = flushInterval.toMillis();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-write-behind-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("books.write-behind.pending", pending, Map::size)
+                .description("Book updates waiting in the write-behind buffer")
+                .register(meterRegistry);
+        this.buffered = Counter.builder("books.write-behind.updates").tag("result", "buffered").register(meterRegistry);
+        this.flushed = Counter.builder("books.write-behind.updates").tag("result", "flushed").register(meterRegistry);
+        this.retried = Counter.builder("books.write-behind.updates").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("books.write-behind.updates").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Book> getBookById(Long id) {
+        return readOverlaid(() -> delegate.getBookById(id), found -> found.map(book -> overlay(book, BookField.ALL)));
+    }
+
+    @Override
+    public Optional<Book> getBookById(Long id, Set<BookField> fields) {
+        return readOverlaid(() -> delegate.getBookById(id, fields), found -> found.map(book -> overlay(book, fields)));
+    }
+
+    // The version only moves when a write lands, so a buffered update is written before its version is read
+    @Override
+    public Optional<Long> getVersionById(Long id) {
+        flush(id);
+        return delegate.getVersionById(id);
+    }
+
+    @Override
+    public List<Book> getBooksByIds(Collection<Long> ids) {
+        return readOverlaid(() -> delegate.getBooksByIds(ids), books -> overlayAll(books, BookField.ALL));
+    }
+
+    @Override
+    public List<Book> getBooksByIds(Collection<Long> ids, Set<BookField> fields) {
+        return readOverlaid(() -> delegate.getBooksByIds(ids, fields), books -> overlayAll(books, fields));
+    }
+
+    @Override
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter) {
+        flushFiltered(filter);
+        return readOverlaid(() -> delegate.getBooksAfter(afterId, limit, filter), books -> overlayAll(books, BookField.ALL));
+    }
+
+    @Override
+    public List<Book> getBooksAfter(Long afterId, int limit, BookFilter filter, Set<BookField> fields) {
+        flushFiltered(filter);
+        return readOverlaid(() -> delegate.getBooksAfter(afterId, limit, filter, fields), books -> overlayAll(books, fields));
+    }
+
+    //Filters are evaluated by the table, where a buffered author or year change would still match on the old value
+    //and miss the new one; such changes are written before the page is read
+    private void flushFiltered(BookFilter filter) {
+
+        EnumSet<BookField> filtered = EnumSet.noneOf(BookField.class);
+        if (filter.author() != null) {
+            filtered.add(BookField.AUTHOR);
+        }
+        if (filter.publicationYear() != null) {
+            filtered.add(BookField.PUBLICATION_YEAR);
+        }
+
+        if (!filtered.isEmpty() && (touches(pending, filtered) || touches(inFlight, filtered))) {
+            flush();
+        }
+    }
+
+    private static boolean touches(Map<Long, PendingUpdate> updates, Set<BookField> fields) {
+        for (PendingUpdate update : updates.values()) {
+            for (BookField field : fields) {
+                if (update.fields().contains(field)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Rows are overlaid as the cursor reaches them, long after the query started, so a read can no longer be
+    // repeated: updates buffered before the export are written first, and later ones are overlaid while buffered
+    @Override
+    public long streamBooks(Consumer<Book> consumer) {
+        flush();
+        return delegate.streamBooks(book -> consumer.accept(overlay(book, BookField.ALL)));
+    }
+
+    @Override
+    public Book createNewBook(Book book) {
+        return delegate.createNewBook(book);
+    }
+
+    @Override
+    public List<Book> createBooks(List<Book> books) {
+        return delegate.createBooks(books);
+    }
+
+    @Override
+    public Optional<Book> updateBookInfo(Book book) {
+        return updateBookFields(book, EnumSet.of(BookField.TITLE, BookField.AUTHOR, BookField.PUBLICATION_YEAR));
+    }
+
+    @Override
+    public Optional<Book> updateBookFields(Book book, Set<BookField> fields) {
+
+        if (book == null) {
+            return Optional.empty();
+        }
+
+        // A version check has to see the table as it is now, so it cannot be deferred
+        if (book.getVersion() != null) {
+            flush(book.getId());
+            return delegate.updateBookFields(book, fields);
+        }
+
+        EnumSet<BookField> writableFields = EnumSet.of(BookField.TITLE, BookField.AUTHOR, BookField.PUBLICATION_YEAR);
+        writableFields.retainAll(fields);
+        if (writableFields.isEmpty()) {
+            throw new IllegalArgumentException("No writable book fields to update: " + fields);
+        }
+
+        // Only the first buffered update for an id pays for the existence check; later ones coalesce onto it
+        if (!pending.containsKey(book.getId()) && delegate.getVersionById(book.getId()).isEmpty()) {
+            return Optional.empty();
+        }
+
+        pending.merge(book.getId(), new PendingUpdate(copy(book), writableFields), PendingUpdate::mergedWith);
+        buffered.increment();
+
+        if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+
+        return Optional.of(book);
+    }
+
+    @Override
+    public int updateBooks(List<Book> books, Set<BookField> fields) {
+        return delegate.updateBooks(books, fields);
+    }
+
+    @Override
+    public boolean deleteBookById(Long id) {
+
+        if (id != null) {
+            pending.remove(id);
+        }
+
+        return delegate.deleteBookById(id);
+    }
+
+    public int pendingUpdates() {
+        return pending.size();
+    }
+
+    //Writes every buffered update; updates that arrive meanwhile wait for the next flush.
+    //Throws when a batch could not be written; its updates are back in the buffer by then.
+    public void flush() {
+
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+
+            Map<Set<BookField>, List<Book>> byColumns = new HashMap<>();
+            for (Long id : pending.keySet()) {
+                PendingUpdate update = takeForFlush(id);
+                if (update != null) {
+                    byColumns.computeIfAbsent(update.fields(), key -> new ArrayList<>()).add(update.book());
+                }
+            }
+
+            DataAccessException failure = null;
+            for (Map.Entry<Set<BookField>, List<Book>> batch : byColumns.entrySet()) {
+                try {
+                    write(batch.getKey(), batch.getValue());
+                } catch (DataAccessException e) {
+                    failure = e;
+                }
+            }
+
+            if (failure != null) {
+                backOff();
+                throw failure;
+            }
+            backoffMillis = 0;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //Writes one book's buffered update. Also waits for a bulk flush that is writing it, so nothing read or
+    //written after this returns can be overtaken by an older buffered value.
+    private void flush(Long id) {
+
+        // pending is checked first: an update moves to inFlight before it leaves pending
+        if (id == null || !pending.containsKey(id) && !inFlight.containsKey(id)) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            PendingUpdate update = takeForFlush(id);
+            if (update != null) {
+                write(update.fields(), List.of(update.book()));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private PendingUpdate takeForFlush(Long id) {
+
+        PendingUpdate[] taken = new PendingUpdate[1];
+        pending.computeIfPresent(id, (key, update) -> {
+            inFlight.put(key, update);
+            taken[0] = update;
+            return null;
+        });
+
+        return taken[0];
+    }
+
+    private void write(Set<BookField> fields, List<Book> books) {
+
+        try {
+            delegate.updateBooks(books, fields);
+        } catch (DataIntegrityViolationException e) {
+            if (books.size() > 1) {
+                // One bad row fails the whole batch; write the rows one at a time to find it
+                DataAccessException failure = null;
+                for (Book book : books) {
+                    try {
+                        write(fields, List.of(book));
+                    } catch (DataAccessException rowFailure) {
+                        failure = rowFailure;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return;
+            }
+            // The row itself is invalid, so no retry can succeed
+            failed.increment();
+            log.error("Write-behind update of book {} was rejected and dropped: {}", books.get(0).getId(), e.getMessage());
+            landed(books);
+            return;
+        } catch (DataAccessException e) {
+            requeue(books);
+            retried.increment(books.size());
+            log.warn("Write-behind flush of {} book updates failed and will be retried: {}", books.size(), e.getMessage());
+            throw e;
+        }
+
+        flushed.increment(books.size());
+        landed(books);
+    }
+
+    //Newer updates buffered while the failed batch was written stay on top of it
+    private void requeue(List<Book> books) {
+        for (Book book : books) {
+            PendingUpdate failedUpdate = inFlight.get(book.getId());
+            if (failedUpdate != null) {
+                pending.merge(book.getId(), failedUpdate, (newer, failedOne) -> failedOne.mergedWith(newer));
+                bufferMoves.incrementAndGet();
+                inFlight.remove(book.getId());
+            }
+        }
+    }
+
+    private void landed(List<Book> books) {
+
+        bufferMoves.incrementAndGet();
+        List<Long> ids = new ArrayList<>(books.size());
+        for (Book book : books) {
+            inFlight.remove(book.getId());
+            ids.add(book.getId());
+        }
+
+        eventPublisher.publishEvent(new BooksFlushedEvent(ids));
+    }
+
+    //Doubles the wait before the next scheduled flush, starting from the flush interval
+    private void backOff() {
+        backoffMillis = backoffMillis == 0 ? flushIntervalMillis : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+    }
+
+    private void flushQuietly() {
+
+        if (System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            // Already logged and requeued by write
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    //A batch can commit and leave inFlight after the query read the old row but before the overlay looks for the
+    //update, which would hide it from both. bufferMoves is bumped before every such move, so a read that
+    //overlapped one is repeated.
+    private <T> T readOverlaid(Supplier<T> read, UnaryOperator<T> overlay) {
+        while (true) {
+            long moves = bufferMoves.get();
+            T result = overlay.apply(read.get());
+            if (bufferMoves.get() == moves) {
+                return result;
+            }
+        }
+    }
+
+    private Book overlay(Book book, Set<BookField> fields) {
+
+        // pending before inFlight, so an update moving between them is seen in at least one;
+        // an update being written is applied first and anything buffered since goes on top
+        PendingUpdate buffered = pending.get(book.getId());
+        PendingUpdate writing = inFlight.get(book.getId());
+        if (buffered == null && writing == null) {
+            return book;
+        }
+
+        apply(book, writing, fields);
+        apply(book, buffered, fields);
+
+        // The stored version predates the buffered content, and the one it will get is not known until it lands.
+        // Without a version the row carries no ETag, and getVersionById flushes it before answering
+        book.setVersion(null);
+
+        return book;
+    }
+
+    private static void apply(Book book, PendingUpdate update, Set<BookField> fields) {
+
+        if (update == null) {
+            return;
+        }
+
+        for (BookField field : update.fields()) {
+            if (!BookField.isAll(fields) && !fields.contains(field)) {
+                continue;
+            }
+            switch (field) {
+                case TITLE -> book.setTitle(update.book().getTitle());
+                case AUTHOR -> book.setAuthor(update.book().getAuthor());
+                case PUBLICATION_YEAR -> book.setPublicationYear(update.book().getPublicationYear());
+                default -> {
+                }
+            }
+        }
+    }
+
+    private List<Book> overlayAll(List<Book> books, Set<BookField> fields) {
+
+        if (!pending.isEmpty() || !inFlight.isEmpty()) {
+            books.forEach(book -> overlay(book, fields));
+        }
+
+        return books;
+    }
+
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getVersion());
+    }
+
+    // Runs before the datasource is closed, since this bean depends on it through the delegate
+    @PreDestroy
+    void shutdown() {
+
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            flush();
+            log.info("Write-behind buffer drained on shutdown");
+        } catch (DataAccessException e) {
+            log.error("Write-behind buffer could not be drained on shutdown, {} book updates were not written",
+                    pending.size());
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.jefferson.books_jdbc.search;
+
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//In-memory inverted index over title and author words. Each word maps to a sorted primitive list of book ids per field;
+//a query returns the books containing every query word, ranked by title matches over author matches.
+//Every matching book is scored, but only the best max-candidates are kept for paging: deeper pages are empty
+//and the hit count reported stops at max-candidates.
+@Slf4j
+@Component
+public class BookSearchIndex {
+
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+    private static final int MAX_QUERY_TOKENS = 16;
+    private static final LongPostingList NO_POSTINGS = new LongPostingList();
+    private static final String[] NO_TOKENS = new String[0];
+
+    public record SearchHits(long[] ids, int totalHits, boolean totalHitsCapped) {
+
+        static final SearchHits NONE = new SearchHits(new long[0], 0, false);
+    }
+
+    private record IndexedBook(String[] titleTokens, String[] authorTokens) {
+    }
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final int maxCandidates;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, LongPostingList> titlePostings = new HashMap<>();
+    private final Map<String, LongPostingList> authorPostings = new HashMap<>();
+    private final Map<Long, IndexedBook> documents = new HashMap<>();
+    private final Set<Long> deletedDuringBuild = new HashSet<>();
+
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    @Autowired
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${books.search.enabled:true}") boolean enabled,
+                           @Value("${books.search.max-candidates:10000}") int maxCandidates) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    //Built in the background so startup is not held up by a large catalog; searches see a partial index until ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+
+        if (!enabled) {
+            return;
+        }
+
+        Thread builder = new Thread(this::build, "book-search-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void build() {
+
+        long start = System.nanoTime();
+        building = true;
+
+        try {
+            // Rows already indexed by a concurrent write event are newer than the streamed row, so they are kept
+            long rows = bookRepository.streamBooks(this::indexIfAbsent);
+            log.info("Search index built from {} books in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = false;
+                deletedDuringBuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        }
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            unindex(event.bookId());
+            if (event.current() != null) {
+                index(event.current());
+            } else if (building) {
+                deletedDuringBuild.add(event.bookId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int offset, int limit) {
+
+        String[] tokens = queryTokens(query);
+        if (!enabled || tokens.length == 0) {
+            return SearchHits.NONE;
+        }
+
+        // Ranks past max-candidates are never served, so no more than this many books per score are kept
+        int depth = (int) Math.max(0, Math.min((long) offset + limit, maxCandidates));
+        int maxScore = tokens.length * (TITLE_WEIGHT + AUTHOR_WEIGHT);
+        long[][] byScore = new long[maxScore + 1][];
+        int[] perScore = new int[maxScore + 1];
+        int minKeptScore = depth == 0 ? maxScore + 1 : 1;
+        int matched = 0;
+
+        lock.readLock().lock();
+        try {
+            // Walk the rarest word's books in id order and keep those containing every other word
+            Arrays.sort(tokens, Comparator.comparingInt(this::postingCount));
+
+            LongPostingList firstTitle = postings(titlePostings, tokens[0]);
+            LongPostingList firstAuthor = postings(authorPostings, tokens[0]);
+            LongPostingList.Cursor[] titles = new LongPostingList.Cursor[tokens.length];
+            LongPostingList.Cursor[] authors = new LongPostingList.Cursor[tokens.length];
+            for (int t = 1; t < tokens.length; t++) {
+                titles[t] = postings(titlePostings, tokens[t]).cursor();
+                authors[t] = postings(authorPostings, tokens[t]).cursor();
+            }
+
+            int i = 0, j = 0;
+            while (i < firstTitle.size() || j < firstAuthor.size()) {
+
+                long titleId = i < firstTitle.size() ? firstTitle.get(i) : Long.MAX_VALUE;
+                long authorId = j < firstAuthor.size() ? firstAuthor.get(j) : Long.MAX_VALUE;
+                long id = Math.min(titleId, authorId);
+
+                int score = 0;
+                if (titleId == id) {
+                    score += TITLE_WEIGHT;
+                    i++;
+                }
+                if (authorId == id) {
+                    score += AUTHOR_WEIGHT;
+                    j++;
+                }
+
+                for (int t = 1; t < tokens.length && score > 0; t++) {
+                    int tokenScore = (titles[t].advanceTo(id) ? TITLE_WEIGHT : 0) + (authors[t].advanceTo(id) ? AUTHOR_WEIGHT : 0);
+                    score = tokenScore == 0 ? 0 : score + tokenScore;
+                }
+
+                if (score == 0) {
+                    continue;
+                }
+                matched++;
+
+                // Ids arrive in ascending order, which is the tie order within a score, so once a score holds
+                // depth books no later book with that score or a lower one can reach the page
+                if (score >= minKeptScore) {
+                    byScore[score] = append(byScore[score], perScore[score]++, id, depth);
+                    if (perScore[score] == depth) {
+                        minKeptScore = score + 1;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int ranked = Math.min(matched, maxCandidates);
+        return new SearchHits(rankedPage(byScore, perScore, ranked, offset, limit), ranked, matched > maxCandidates);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int indexedBooks() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String[] tokenize(String text) {
+
+        if (text == null || text.isBlank()) {
+            return NO_TOKENS;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+
+        return new LinkedHashSet<>(tokens).toArray(NO_TOKENS);
+    }
+
+    private static String[] queryTokens(String query) {
+        String[] tokens = tokenize(query);
+        return tokens.length > MAX_QUERY_TOKENS ? Arrays.copyOf(tokens, MAX_QUERY_TOKENS) : tokens;
+    }
+
+    private static long[] append(long[] ids, int count, long id, int depth) {
+
+        if (ids == null) {
+            ids = new long[Math.min(16, depth)];
+        } else if (count == ids.length) {
+            ids = Arrays.copyOf(ids, (int) Math.min((long) count * 2, depth));
+        }
+        ids[count] = id;
+
+        return ids;
+    }
+
+    //Books kept per score are already in rank order: best score first, ascending ids within a score
+    private static long[] rankedPage(long[][] byScore, int[] perScore, int ranked, int offset, int limit) {
+
+        int from = Math.max(0, Math.min(offset, ranked));
+        int to = (int) Math.min((long) from + limit, ranked);
+        if (from == to) {
+            return new long[0];
+        }
+
+        long[] page = new long[to - from];
+        int rank = 0;
+        for (int score = perScore.length - 1; score > 0 && rank < to; score--) {
+            int count = perScore[score];
+            if (rank + count > from) {
+                int skip = Math.max(0, from - rank);
+                int take = Math.min(count, to - rank) - skip;
+                System.arraycopy(byScore[score], skip, page, rank + skip - from, take);
+            }
+            rank += count;
+        }
+
+        return page;
+    }
+
+    private int postingCount(String token) {
+        return postings(titlePostings, token).size() + postings(authorPostings, token).size();
+    }
+
+    private static LongPostingList postings(Map<String, LongPostingList> postings, String token) {
+        return postings.getOrDefault(token, NO_POSTINGS);
+    }
+
+    private void indexIfAbsent(Book book) {
+
+        lock.writeLock().lock();
+        try {
+            if (!documents.containsKey(book.getId()) && !deletedDuringBuild.contains(book.getId())) {
+                index(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Book book) {
+
+        String[] titleTokens = tokenize(book.getTitle());
+        String[] authorTokens = tokenize(book.getAuthor());
+
+        for (String token : titleTokens) {
+            titlePostings.computeIfAbsent(token, key -> new LongPostingList()).add(book.getId());
+        }
+        for (String token : authorTokens) {
+            authorPostings.computeIfAbsent(token, key -> new LongPostingList()).add(book.getId());
+        }
+
+        documents.put(book.getId(), new IndexedBook(titleTokens, authorTokens));
+    }
+
+    private void unindex(long id) {
+
+        IndexedBook indexedBook = documents.remove(id);
+        if (indexedBook == null) {
+            return;
+        }
+
+        removePostings(titlePostings, indexedBook.titleTokens(), id);
+        removePostings(authorPostings, indexedBook.authorTokens(), id);
+    }
+
+    private static void removePostings(Map<String, LongPostingList> postings, String[] tokens, long id) {
+        for (String token : tokens) {
+            LongPostingList list = postings.get(token);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.jefferson.books_jdbc.search;
+
+import java.util.Arrays;
+
+//Sorted, duplicate-free list of book ids backed by a primitive array. Ids mostly arrive in increasing order,
+//so appends are the common case; inserts and removals in the middle shift the tail.
+final class LongPostingList {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    void add(long id) {
+
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(long id) {
+
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return;
+        }
+
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    //Answers membership for ids asked in ascending order. Each lookup gallops forward from the previous one,
+    //so walking a run of nearby ids costs about the log of the gap instead of a full binary search.
+    final class Cursor {
+
+        private int position;
+
+        boolean advanceTo(long id) {
+
+            int low = position;
+            if (low >= size) {
+                return false;
+            }
+            if (ids[low] >= id) {
+                return ids[low] == id;
+            }
+
+            int step = 1;
+            while (low + step < size && ids[low + step] < id) {
+                low += step;
+                step <<= 1;
+            }
+
+            int index = Arrays.binarySearch(ids, low + 1, Math.min(low + step + 1, size), id);
+            position = index >= 0 ? index : -index - 1;
+            return index >= 0;
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+}
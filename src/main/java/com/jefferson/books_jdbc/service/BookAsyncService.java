@@ -0,0 +1,39 @@
+package com.jefferson.books_jdbc.service;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookPage;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.dto.BooksByIdsResponse;
+import com.jefferson.books_jdbc.repository.BookField;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+//BookService on a bounded JDBC executor. Validation and errors come from BookService and complete the future
+//exceptionally; a full executor fails fast with RejectedExecutionException instead of queueing without limit.
+public interface BookAsyncService {
+
+    CompletableFuture<BookDto> getBookById(Long id, Set<BookField> fields);
+
+    CompletableFuture<Long> getBookVersion(Long id);
+
+    CompletableFuture<BooksByIdsResponse> getBooksByIds(List<Long> ids, Set<BookField> fields);
+
+    CompletableFuture<BookPage> getBooks(Long after, int limit, String author, Integer publicationYear,
+                                         Set<BookField> fields);
+
+    CompletableFuture<BookSearchResponse> searchBooks(String query, int page, int size);
+
+    CompletableFuture<BookDto> createNewBook(BookRequest bookRequest);
+
+    CompletableFuture<List<BookDto>> createNewBooks(List<BookRequest> bookRequests);
+
+    CompletableFuture<BookDto> updateBookInfo(Long id, BookRequest bookRequest, Long expectedVersion);
+
+    CompletableFuture<BookDto> patchBook(Long id, BookPatchRequest bookPatchRequest, Long expectedVersion);
+
+    CompletableFuture<Boolean> deleteBookById(Long id);
+}
@@ -0,0 +1,179 @@
+package com.jefferson.books_jdbc.service;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookPage;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.dto.BooksByIdsResponse;
+import com.jefferson.books_jdbc.repository.BookField;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class BookAsyncServiceImpl implements BookAsyncService {
+
+    private final BookService bookService;
+    private final ExecutorService jdbcExecutor;
+    private final Semaphore inFlight;
+    private final Duration shutdownTimeout;
+
+    //pool-size 0 follows the connection pool: its configured maximum, or the adaptive max-size when the pool is resized
+    @Autowired
+    public BookAsyncServiceImpl(BookService bookService,
+                                @Value("${books.async.pool-size:0}") int poolSize,
+                                @Value("${books.async.queue-capacity:100}") int queueCapacity,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                @Value("${books.async.shutdown-timeout:10s}") Duration shutdownTimeout,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                                @Value("${books.datasource.adaptive.enabled:false}") boolean adaptivePool,
+                                @Value("${books.datasource.adaptive.max-size:40}") int adaptiveMaxSize) {
+        this(bookService, poolSize > 0 ? poolSize : adaptivePool ? adaptiveMaxSize : connectionPoolSize,
+                queueCapacity, virtualThreads, shutdownTimeout);
+    }
+
+    public BookAsyncServiceImpl(BookService bookService, int poolSize, int queueCapacity, boolean virtualThreads,
+                                Duration shutdownTimeout) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("books.async.pool-size must be positive: " + poolSize);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("books.async.queue-capacity must be positive: " + queueCapacity);
+        }
+        this.bookService = bookService;
+        this.shutdownTimeout = shutdownTimeout;
+
+        if (virtualThreads) {
+            // A virtual thread per request: blocking JDBC calls park instead of holding a worker, and the
+            // connection pool (or its guard) is what limits concurrency. Admission is still bounded, by the
+            // same number of requests the platform executor accepts running and queued
+            this.jdbcExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("book-jdbc-", 1).factory());
+            this.inFlight = new Semaphore(poolSize + queueCapacity);
+            return;
+        }
+
+        // Sized like the connection pool: more threads would only wait for connections. The abort policy
+        // turns a full queue into an immediate 503 rather than ever-growing latency
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.jdbcExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "book-jdbc-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.inFlight = null;
+    }
+
+    @Override
+    public CompletableFuture<BookDto> getBookById(Long id, Set<BookField> fields) {
+        return submit(() -> bookService.getBookById(id, fields));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBookVersion(Long id) {
+        return submit(() -> bookService.getBookVersion(id));
+    }
+
+    @Override
+    public CompletableFuture<BooksByIdsResponse> getBooksByIds(List<Long> ids, Set<BookField> fields) {
+        return submit(() -> bookService.getBooksByIds(ids, fields));
+    }
+
+    @Override
+    public CompletableFuture<BookPage> getBooks(Long after, int limit, String author, Integer publicationYear,
+                                                Set<BookField> fields) {
+        return submit(() -> bookService.getBooks(after, limit, author, publicationYear, fields));
+    }
+
+    @Override
+    public CompletableFuture<BookSearchResponse> searchBooks(String query, int page, int size) {
+        return submit(() -> bookService.searchBooks(query, page, size));
+    }
+
+    @Override
+    public CompletableFuture<BookDto> createNewBook(BookRequest bookRequest) {
+        return submit(() -> bookService.createNewBook(bookRequest));
+    }
+
+    @Override
+    public CompletableFuture<List<BookDto>> createNewBooks(List<BookRequest> bookRequests) {
+        return submit(() -> bookService.createNewBooks(bookRequests));
+    }
+
+    @Override
+    public CompletableFuture<BookDto> updateBookInfo(Long id, BookRequest bookRequest, Long expectedVersion) {
+        return submit(() -> expectedVersion == null
+                ? bookService.updateBookInfo(id, bookRequest)
+                : bookService.updateBookInfo(id, bookRequest, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<BookDto> patchBook(Long id, BookPatchRequest bookPatchRequest, Long expectedVersion) {
+        return submit(() -> bookService.patchBook(id, bookPatchRequest, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteBookById(Long id) {
+        return submit(() -> bookService.deleteBookById(id));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        if (inFlight == null) {
+            return CompletableFuture.supplyAsync(call, jdbcExecutor);
+        }
+
+        if (!inFlight.tryAcquire()) {
+            throw new RejectedExecutionException("Too many book requests in flight");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.get();
+                } finally {
+                    inFlight.release();
+                }
+            }, jdbcExecutor);
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // Accepted requests, running or queued, get shutdown-timeout to finish before their threads are interrupted
+    @PreDestroy
+    void shutdown() {
+
+        jdbcExecutor.shutdown();
+        try {
+            if (jdbcExecutor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int dropped = jdbcExecutor.shutdownNow().size();
+        log.warn("JDBC executor did not finish within {}; interrupted running requests and dropped {} queued",
+                shutdownTimeout, dropped);
+    }
+}
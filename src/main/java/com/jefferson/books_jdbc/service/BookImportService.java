@@ -0,0 +1,15 @@
+package com.jefferson.books_jdbc.service;
+
+import com.jefferson.books_jdbc.dto.BookImportSummary;
+import com.jefferson.books_jdbc.importer.BookImportFormat;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.InputStream;
+
+public interface BookImportService {
+
+    BookImportSummary importBooks(@NotNull(message = "Book import: input mustn't be null")
+                                  InputStream input,
+                                  @NotNull(message = "Book import: format mustn't be null")
+                                  BookImportFormat format);
+}
@@ -0,0 +1,264 @@
+package com.jefferson.books_jdbc.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.books_jdbc.dto.BookImportRejection;
+import com.jefferson.books_jdbc.dto.BookImportSummary;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.importer.BookImportFormat;
+import com.jefferson.books_jdbc.importer.BookRecord;
+import com.jefferson.books_jdbc.importer.BookRecordReader;
+import com.jefferson.books_jdbc.importer.CsvBookRecordReader;
+import com.jefferson.books_jdbc.importer.NdjsonBookRecordReader;
+import com.jefferson.books_jdbc.mapper.BookMapper;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.annotation.Validated;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+@Validated
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final int MAX_SAMPLE_REJECTIONS = 100;
+    private static final List<BookRecord> END_OF_INPUT = List.of();
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int commitSize;
+    private final int queueCapacity;
+    private final ExecutorService writerExecutor;
+
+    @Autowired
+    public BookImportServiceImpl(BookRepository bookRepository,
+                                 BookMapper bookMapper,
+                                 Validator validator,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${books.import.commit-size:1000}") int commitSize,
+                                 @Value("${books.import.queue-capacity:4}") int queueCapacity,
+                                 @Value("${books.import.max-concurrent-imports:2}") int maxConcurrentImports) {
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.commitSize = commitSize;
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writerExecutor = Executors.newFixedThreadPool(maxConcurrentImports, runnable -> {
+            Thread thread = new Thread(runnable, "book-import-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public BookImportSummary importBooks(InputStream input, BookImportFormat format) {
+
+        ImportTally tally = new ImportTally();
+
+        // The parser (this thread) and the writer hand chunks over through a bounded queue,
+        // so parsing the next chunk overlaps with inserting the previous one and memory stays capped
+        BlockingQueue<List<BookRecord>> chunks = new ArrayBlockingQueue<>(queueCapacity);
+        Future<?> writer = writerExecutor.submit(() -> {
+            writeChunks(chunks, tally);
+            return null;
+        });
+
+        try {
+            parse(readerFor(input, format), chunks, writer, tally);
+        } finally {
+            handOver(chunks, END_OF_INPUT, writer);
+        }
+
+        try {
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Book import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Book import writer failed", e.getCause());
+        }
+
+        return tally.toSummary();
+    }
+
+    private BookRecordReader readerFor(InputStream input, BookImportFormat format) {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        return switch (format) {
+            case NDJSON -> new NdjsonBookRecordReader(reader, objectMapper.reader());
+            case CSV -> new CsvBookRecordReader(reader);
+        };
+    }
+
+    private void parse(BookRecordReader reader, BlockingQueue<List<BookRecord>> chunks,
+                       Future<?> writer, ImportTally tally) {
+
+        List<BookRecord> chunk = new ArrayList<>(commitSize);
+
+        try {
+            BookRecord bookRecord;
+            while ((bookRecord = reader.next()) != null) {
+
+                String rejectReason = bookRecord.isMalformed() ? bookRecord.error() : validate(bookRecord.bookRequest());
+                if (rejectReason != null) {
+                    tally.reject(bookRecord.lineNumber(), rejectReason);
+                    continue;
+                }
+
+                chunk.add(bookRecord);
+                if (chunk.size() == commitSize) {
+                    if (!handOver(chunks, chunk, writer)) {
+                        // The writer failed; reading the rest of the upload would be wasted work
+                        return;
+                    }
+                    chunk = new ArrayList<>(commitSize);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import input", e);
+        }
+
+        if (!chunk.isEmpty()) {
+            handOver(chunks, chunk, writer);
+        }
+    }
+
+    private String validate(BookRequest bookRequest) {
+
+        Set<ConstraintViolation<BookRequest>> violations = validator.validate(bookRequest);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+
+        // Mirrors the table's CHECK, which would otherwise fail the whole chunk at insert time
+        if (bookRequest.publicationYear() > Year.now().getValue()) {
+            return "Book import: publicationYear is in the future";
+        }
+
+        return null;
+    }
+
+    //Returns false if the writer has stopped and will never take the chunk
+    private static boolean handOver(BlockingQueue<List<BookRecord>> chunks, List<BookRecord> chunk, Future<?> writer) {
+
+        try {
+            while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Book import interrupted", e);
+        }
+    }
+
+    private void writeChunks(BlockingQueue<List<BookRecord>> chunks, ImportTally tally) throws InterruptedException {
+
+        List<BookRecord> chunk;
+        while ((chunk = chunks.take()) != END_OF_INPUT) {
+            writeChunk(chunk, tally);
+        }
+    }
+
+    // Every chunk commits on its own; a chunk the database rejects is retried row by row,
+    // so only the offending lines are lost
+    private void writeChunk(List<BookRecord> chunk, ImportTally tally) {
+
+        try {
+            insert(chunk);
+            tally.accept(chunk.size());
+        } catch (DataAccessException e) {
+            if (chunk.size() == 1) {
+                log.warn("Book import line {} failed: {}", chunk.get(0).lineNumber(), e.getMessage());
+                tally.reject(chunk.get(0).lineNumber(), "Database rejected the row");
+                return;
+            }
+            log.warn("Book import chunk starting at line {} failed, retrying row by row: {}",
+                    chunk.get(0).lineNumber(), e.getMessage());
+            chunk.forEach(bookRecord -> writeChunk(List.of(bookRecord), tally));
+        }
+    }
+
+    private void insert(List<BookRecord> chunk) {
+
+        List<Book> books = new ArrayList<>(chunk.size());
+        chunk.forEach(bookRecord -> books.add(bookMapper.toEntity(bookRecord.bookRequest())));
+
+        transactionTemplate.executeWithoutResult(status -> bookRepository.createBooks(books));
+        books.forEach(book -> eventPublisher.publishEvent(BookChangedEvent.created(book)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writerExecutor.shutdownNow();
+    }
+
+    private static final class ImportTally {
+
+        private long accepted;
+        private long rejected;
+        private final Map<String, Long> rejectReasons = new TreeMap<>();
+        private final List<BookImportRejection> sampleRejections = new ArrayList<>();
+
+        synchronized void accept(int count) {
+            accepted += count;
+        }
+
+        synchronized void reject(long lineNumber, String reason) {
+            rejected++;
+            rejectReasons.merge(reason, 1L, Long::sum);
+            if (sampleRejections.size() < MAX_SAMPLE_REJECTIONS) {
+                sampleRejections.add(new BookImportRejection(lineNumber, reason));
+            }
+        }
+
+        synchronized BookImportSummary toSummary() {
+            sampleRejections.sort((left, right) -> Long.compare(left.lineNumber(), right.lineNumber()));
+            return new BookImportSummary(accepted, rejected, new TreeMap<>(rejectReasons), List.copyOf(sampleRejections));
+        }
+    }
+}
@@ -1,10 +1,25 @@
 package com.jefferson.books_jdbc.service;
 
 import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookPage;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
 import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.dto.BooksByIdsResponse;
+import com.jefferson.books_jdbc.repository.BookField;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface BookService {
 
@@ -12,10 +27,66 @@ public interface BookService {
                         @Positive(message = "Book service: book id must be positive")
                         Long id);
 
+    BookDto getBookById(@NotNull(message = "Book service: book id mustn't be null")
+                        @Positive(message = "Book service: book id must be positive")
+                        Long id,
+                        @NotEmpty(message = "Book service: fields mustn't be null or empty")
+                        Set<BookField> fields);
+
+    long getBookVersion(@NotNull(message = "Book service: book id mustn't be null")
+                        @Positive(message = "Book service: book id must be positive")
+                        Long id);
+
+    BooksByIdsResponse getBooksByIds(@NotEmpty(message = "Book service: book ids mustn't be null or empty")
+                                     @Size(max = 1_000, message = "Book service: at most 1000 ids per request")
+                                     List<@NotNull(message = "Book service: book id mustn't be null")
+                                          @Positive(message = "Book service: book id must be positive") Long> ids);
+
+    BooksByIdsResponse getBooksByIds(@NotEmpty(message = "Book service: book ids mustn't be null or empty")
+                                     @Size(max = 1_000, message = "Book service: at most 1000 ids per request")
+                                     List<@NotNull(message = "Book service: book id mustn't be null")
+                                          @Positive(message = "Book service: book id must be positive") Long> ids,
+                                     @NotEmpty(message = "Book service: fields mustn't be null or empty")
+                                     Set<BookField> fields);
+
+    BookPage getBooks(@PositiveOrZero(message = "Book service: cursor mustn't be negative")
+                      Long after,
+                      @Min(value = 1, message = "Book service: limit must be at least 1")
+                      @Max(value = 1_000, message = "Book service: limit must be at most 1000")
+                      int limit,
+                      String author,
+                      Integer publicationYear);
+
+    BookPage getBooks(@PositiveOrZero(message = "Book service: cursor mustn't be negative")
+                      Long after,
+                      @Min(value = 1, message = "Book service: limit must be at least 1")
+                      @Max(value = 1_000, message = "Book service: limit must be at most 1000")
+                      int limit,
+                      String author,
+                      Integer publicationYear,
+                      @NotEmpty(message = "Book service: fields mustn't be null or empty")
+                      Set<BookField> fields);
+
+    BookSearchResponse searchBooks(@NotBlank(message = "Book service: search query mustn't be blank")
+                                   String query,
+                                   @PositiveOrZero(message = "Book service: page mustn't be negative")
+                                   int page,
+                                   @Min(value = 1, message = "Book service: page size must be at least 1")
+                                   @Max(value = 100, message = "Book service: page size must be at most 100")
+                                   int size);
+
+    long exportBooks(@NotNull(message = "Book service: export consumer mustn't be null")
+                     Consumer<BookDto> consumer);
+
     BookDto createNewBook(@NotNull(message = "Book service: book request mustn't be null")
                           @Valid
                           BookRequest bookRequest);
 
+    List<BookDto> createNewBooks(@NotEmpty(message = "Book service: book requests mustn't be null or empty")
+                                 @Size(max = 10_000, message = "Book service: at most 10000 books per batch")
+                                 List<@NotNull(message = "Book service: book request mustn't be null")
+                                      @Valid BookRequest> bookRequests);
+
     BookDto updateBookInfo(@NotNull(message = "Book service: book id mustn't be null")
                            @Positive(message = "Book service: book id must be positive")
                            Long id,
@@ -23,6 +94,24 @@ public interface BookService {
                            @Valid
                            BookRequest bookRequest);
 
+    BookDto updateBookInfo(@NotNull(message = "Book service: book id mustn't be null")
+                           @Positive(message = "Book service: book id must be positive")
+                           Long id,
+                           @NotNull(message = "Book service: book request mustn't be null")
+                           @Valid
+                           BookRequest bookRequest,
+                           @PositiveOrZero(message = "Book service: expected version mustn't be negative")
+                           Long expectedVersion);
+
+    BookDto patchBook(@NotNull(message = "Book service: book id mustn't be null")
+                      @Positive(message = "Book service: book id must be positive")
+                      Long id,
+                      @NotNull(message = "Book service: book patch mustn't be null")
+                      @Valid
+                      BookPatchRequest bookPatchRequest,
+                      @PositiveOrZero(message = "Book service: expected version mustn't be negative")
+                      Long expectedVersion);
+
     boolean deleteBookById(@NotNull(message = "Book service: book id mustn't be null")
                            @Positive(message = "Book service: book id must be positive")
                            Long id);
@@ -1,37 +1,257 @@
 package com.jefferson.books_jdbc.service;
 
+import com.jefferson.books_jdbc.cache.BookCache;
+import com.jefferson.books_jdbc.cache.BookIdFilter;
+import com.jefferson.books_jdbc.datasource.ReadScope;
 import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookPage;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
 import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.dto.BooksByIdsResponse;
+import com.jefferson.books_jdbc.event.BookChangedEvent;
 import com.jefferson.books_jdbc.exception.BookNotFoundException;
+import com.jefferson.books_jdbc.exception.BookVersionConflictException;
 import com.jefferson.books_jdbc.mapper.BookMapper;
 import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookField;
+import com.jefferson.books_jdbc.repository.BookFilter;
 import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.search.BookSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
 @Service
 @Validated
 public class BookServiceImpl implements BookService {
 
+    private static final Set<BookField> PREVIOUS_FIELDS = EnumSet.of(BookField.AUTHOR, BookField.PUBLICATION_YEAR);
+
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final BookCache bookCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookIdFilter bookIdFilter;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper) {
+    public BookServiceImpl(BookRepository bookRepository,
+                           BookMapper bookMapper,
+                           BookCache bookCache,
+                           BookSearchIndex bookSearchIndex,
+                           BookIdFilter bookIdFilter,
+                           ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.bookMapper = bookMapper;
+        this.bookCache = bookCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookIdFilter = bookIdFilter;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public BookDto getBookById(Long id) {
 
-        Book book = bookRepository.getBookById(id)
-                .orElseThrow(() -> new BookNotFoundException("Book not found for id: " + id));
+        return bookCache.get(id, this::loadBook);
+    }
+
+    @Override
+    public BookDto getBookById(Long id, Set<BookField> fields) {
+
+        if (BookField.isAll(fields)) {
+            return getBookById(id);
+        }
+
+        // The cache only holds whole books; a hit is trimmed here, a miss reads just the requested columns
+        BookDto cached = bookCache.getIfPresent(id);
+        if (cached != null) {
+            return project(cached, fields);
+        }
+
+        return bookCache.getProjection(id, fields, key -> loadBook(key, fields));
+    }
+
+    private BookDto loadBook(Long id) {
+
+        requireMightExist(id);
+
+        Book book = ReadScope.reading(List.of(id), () -> bookRepository.getBookById(id))
+                .orElseThrow(() -> falsePositive(id));
+
+        return bookMapper.toDto(book);
+    }
+
+    private BookDto loadBook(Long id, Set<BookField> fields) {
+
+        requireMightExist(id);
+
+        Book book = ReadScope.reading(List.of(id), () -> bookRepository.getBookById(id, fields))
+                .orElseThrow(() -> falsePositive(id));
 
         return bookMapper.toDto(book);
     }
 
+    //Ids the filter has never seen are not found without a query
+    private void requireMightExist(Long id) {
+        if (!bookIdFilter.mightExist(id)) {
+            throw new BookNotFoundException(id);
+        }
+    }
+
+    private BookNotFoundException falsePositive(Long id) {
+        bookIdFilter.recordFalsePositive();
+        return new BookNotFoundException(id);
+    }
+
+    @Override
+    public long getBookVersion(Long id) {
+
+        // A cached copy answers conditional requests without touching the database
+        BookDto cached = bookCache.getIfPresent(id);
+        if (cached != null && cached.version() != null) {
+            return cached.version();
+        }
+
+        requireMightExist(id);
+
+        return ReadScope.reading(List.of(id), () -> bookRepository.getVersionById(id))
+                .orElseThrow(() -> falsePositive(id));
+    }
+
+    @Override
+    public BooksByIdsResponse getBooksByIds(List<Long> ids) {
+
+        return getBooksByIds(ids, BookField.ALL);
+    }
+
+    @Override
+    public BooksByIdsResponse getBooksByIds(List<Long> ids, Set<BookField> fields) {
+
+        boolean wholeBooks = BookField.isAll(fields);
+        LinkedHashSet<Long> requestedIds = new LinkedHashSet<>(ids);
+
+        Map<Long, BookDto> booksById = new HashMap<>(bookCache.getAllPresent(requestedIds));
+        if (!wholeBooks) {
+            booksById.replaceAll((id, bookDto) -> project(bookDto, fields));
+        }
+
+        List<Long> uncachedIds = requestedIds.stream()
+                .filter(id -> !booksById.containsKey(id))
+                .filter(bookIdFilter::mightExist)
+                .toList();
+
+        if (!uncachedIds.isEmpty()) {
+            List<BookDto> loaded = wholeBooks
+                    ? bookCache.loadAll(uncachedIds, this::loadBooks)
+                    : loadBooks(uncachedIds, fields);
+
+            loaded.forEach(bookDto -> booksById.put(bookDto.id(), bookDto));
+        }
+
+        List<BookDto> books = new ArrayList<>(booksById.size());
+        List<Long> missingIds = new ArrayList<>();
+
+        for (Long id : requestedIds) {
+            BookDto bookDto = booksById.get(id);
+            if (bookDto == null) {
+                missingIds.add(id);
+            } else {
+                books.add(bookDto);
+            }
+        }
+
+        return new BooksByIdsResponse(books, missingIds);
+    }
+
+    private List<BookDto> loadBooks(List<Long> ids) {
+
+        return ReadScope.reading(ids, () -> bookRepository.getBooksByIds(ids)).stream()
+                .map(bookMapper::toDto)
+                .toList();
+    }
+
+    private List<BookDto> loadBooks(List<Long> ids, Set<BookField> fields) {
+
+        return ReadScope.reading(ids, () -> bookRepository.getBooksByIds(ids, fields)).stream()
+                .map(bookMapper::toDto)
+                .toList();
+    }
+
+    @Override
+    public BookPage getBooks(Long after, int limit, String author, Integer publicationYear) {
+
+        return getBooks(after, limit, author, publicationYear, BookField.ALL);
+    }
+
+    @Override
+    public BookPage getBooks(Long after, int limit, String author, Integer publicationYear, Set<BookField> fields) {
+
+        BookFilter filter = new BookFilter(author, publicationYear);
+
+        // One extra row tells whether there is a next page without a COUNT query
+        List<Book> books = BookField.isAll(fields)
+                ? bookRepository.getBooksAfter(after, limit + 1, filter)
+                : bookRepository.getBooksAfter(after, limit + 1, filter, fields);
+
+        boolean hasNext = books.size() > limit;
+        List<Book> pageBooks = hasNext ? books.subList(0, limit) : books;
+
+        Long nextCursor = hasNext ? pageBooks.get(pageBooks.size() - 1).getId() : null;
+
+        return new BookPage(pageBooks.stream().map(bookMapper::toDto).toList(), nextCursor);
+    }
+
+    private static BookDto project(BookDto bookDto, Set<BookField> fields) {
+
+        return new BookDto(bookDto.id(),
+                fields.contains(BookField.TITLE) ? bookDto.title() : null,
+                fields.contains(BookField.AUTHOR) ? bookDto.author() : null,
+                fields.contains(BookField.PUBLICATION_YEAR) ? bookDto.publicationYear() : null,
+                bookDto.version());
+    }
+
+    @Override
+    public BookSearchResponse searchBooks(String query, int page, int size) {
+
+        // page is only bounded below, so the offset is widened before it can overflow
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search(query, offset, size);
+        if (hits.ids().length == 0) {
+            return new BookSearchResponse(List.of(), hits.totalHits(), hits.totalHitsCapped(), page, size);
+        }
+
+        // The index only ranks ids; rows come through the cache-aware multi-get and are put back in rank order
+        List<Long> rankedIds = Arrays.stream(hits.ids()).boxed().toList();
+        Map<Long, BookDto> booksById = new HashMap<>();
+        getBooksByIds(rankedIds).books().forEach(bookDto -> booksById.put(bookDto.id(), bookDto));
+
+        List<BookDto> books = rankedIds.stream()
+                .map(booksById::get)
+                .filter(bookDto -> bookDto != null)
+                .toList();
+
+        return new BookSearchResponse(books, hits.totalHits(), hits.totalHitsCapped(), page, size);
+    }
+
+    @Override
+    public long exportBooks(Consumer<BookDto> consumer) {
+
+        return bookRepository.streamBooks(book -> consumer.accept(bookMapper.toDto(book)));
+    }
+
     @Override
     public BookDto createNewBook(BookRequest bookRequest) {
 
@@ -39,24 +259,115 @@ public class BookServiceImpl implements BookService {
 
         Book savedBook = bookRepository.createNewBook(book);
 
+        eventPublisher.publishEvent(BookChangedEvent.created(savedBook));
+
         return bookMapper.toDto(savedBook);
     }
 
+    @Override
+    public List<BookDto> createNewBooks(List<BookRequest> bookRequests) {
+
+        List<Book> books = bookRequests.stream()
+                .map(bookMapper::toEntity)
+                .toList();
+
+        List<Book> savedBooks = bookRepository.createBooks(books);
+        savedBooks.forEach(savedBook -> eventPublisher.publishEvent(BookChangedEvent.created(savedBook)));
+
+        return savedBooks.stream()
+                .map(bookMapper::toDto)
+                .toList();
+    }
+
     @Override
     public BookDto updateBookInfo(Long id, BookRequest bookRequest) {
 
+        return updateBookInfo(id, bookRequest, null);
+    }
+
+    @Override
+    public BookDto updateBookInfo(Long id, BookRequest bookRequest, Long expectedVersion) {
+
         Book book = bookMapper.toEntity(bookRequest);
         book.setId(id);
+        book.setVersion(expectedVersion);
 
+        Book previous = storedBook(id);
         Book updatedBook = bookRepository.updateBookInfo(book)
-                .orElseThrow(() -> new BookNotFoundException("Book not found for id: " + id));
+                .orElseThrow(() -> new BookNotFoundException(id));
+
+        bookCache.invalidate(id);
+        eventPublisher.publishEvent(BookChangedEvent.updated(previous, updatedBook));
 
         return bookMapper.toDto(updatedBook);
     }
 
+    @Override
+    public BookDto patchBook(Long id, BookPatchRequest bookPatchRequest, Long expectedVersion) {
+
+        BookDto current = getBookById(id);
+
+        if (expectedVersion != null && !expectedVersion.equals(current.version())) {
+            throw new BookVersionConflictException(id, expectedVersion);
+        }
+
+        Book book = new Book(id, current.title(), current.author(), current.publicationYear(), expectedVersion);
+        EnumSet<BookField> changedFields = EnumSet.noneOf(BookField.class);
+
+        if (bookPatchRequest.title() != null && !bookPatchRequest.title().equals(current.title())) {
+            book.setTitle(bookPatchRequest.title());
+            changedFields.add(BookField.TITLE);
+        }
+        if (bookPatchRequest.author() != null && !bookPatchRequest.author().equals(current.author())) {
+            book.setAuthor(bookPatchRequest.author());
+            changedFields.add(BookField.AUTHOR);
+        }
+        if (bookPatchRequest.publicationYear() != null
+                && !Objects.equals(bookPatchRequest.publicationYear(), current.publicationYear())) {
+            book.setPublicationYear(bookPatchRequest.publicationYear());
+            changedFields.add(BookField.PUBLICATION_YEAR);
+        }
+
+        // A patch that matches what is stored costs no write, no version bump and no change event
+        if (changedFields.isEmpty()) {
+            return current;
+        }
+
+        Book patchedBook = bookRepository.updateBookFields(book, changedFields)
+                .orElseThrow(() -> new BookNotFoundException(id));
+
+        bookCache.invalidate(id);
+        eventPublisher.publishEvent(BookChangedEvent.updated(
+                new Book(id, current.title(), current.author(), current.publicationYear(), current.version()),
+                patchedBook));
+
+        return bookMapper.toDto(patchedBook);
+    }
+
     @Override
     public boolean deleteBookById(Long id) {
 
-        return bookRepository.deleteBookById(id);
+        Book previous = storedBook(id);
+        boolean deleted = bookRepository.deleteBookById(id);
+
+        bookCache.invalidate(id);
+        if (deleted) {
+            eventPublisher.publishEvent(BookChangedEvent.deleted(id, previous));
+        }
+
+        return deleted;
+    }
+
+    //What a write is about to replace, so listeners can move counts between buckets without remembering every
+    //book. The cached copy is enough; otherwise only the columns listeners bucket by are read.
+    private Book storedBook(Long id) {
+
+        BookDto cached = bookCache.getIfPresent(id);
+        if (cached != null) {
+            return new Book(id, cached.title(), cached.author(), cached.publicationYear(), cached.version());
+        }
+
+        return ReadScope.reading(List.of(id), () -> bookRepository.getBookById(id, PREVIOUS_FIELDS))
+                .orElse(null);
     }
 }
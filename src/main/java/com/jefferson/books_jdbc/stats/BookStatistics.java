@@ -0,0 +1,347 @@
+package com.jefferson.books_jdbc.stats;
+
+import com.jefferson.books_jdbc.dto.BookStatsSummary;
+import com.jefferson.books_jdbc.dto.BookStatsVerification;
+import com.jefferson.books_jdbc.dto.YearBookCount;
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Book counts per author and per publication year, kept current from BookChangedEvent deltas so dashboards read
+//a map entry instead of running GROUP BY. An event carries the state it replaced, so an update moves a book
+//between buckets without any per-book memory. A periodic recount streams the table into a fresh set of counts,
+//reports where the live counts drifted and swaps the fresh ones in.
+@Slf4j
+@Component
+public class BookStatistics implements MeterBinder {
+
+    //Books without a publication year are only part of the total
+    private static final class Aggregates {
+
+        private long books;
+        private final Map<String, Long> byAuthor = new HashMap<>();
+        private final Map<Integer, Long> byYear = new HashMap<>();
+
+        void add(Book book) {
+            books++;
+            byAuthor.merge(book.getAuthor(), 1L, Long::sum);
+            if (book.getPublicationYear() != null) {
+                byYear.merge(book.getPublicationYear(), 1L, Long::sum);
+            }
+        }
+
+        void subtract(Book book) {
+            books--;
+            decrement(byAuthor, book.getAuthor());
+            if (book.getPublicationYear() != null) {
+                decrement(byYear, book.getPublicationYear());
+            }
+        }
+
+        // Without the replaced state an update cannot move buckets and a delete only lowers the total;
+        // the next recount repairs the rest
+        void apply(BookChangedEvent event) {
+            switch (event.changeType()) {
+                case CREATED -> add(event.current());
+                case UPDATED -> {
+                    if (event.previous() != null) {
+                        subtract(event.previous());
+                        add(event.current());
+                    }
+                }
+                case DELETED -> {
+                    if (event.previous() != null) {
+                        subtract(event.previous());
+                    } else {
+                        books--;
+                    }
+                }
+            }
+        }
+
+        private static <K> void decrement(Map<K, Long> counts, K key) {
+            counts.computeIfPresent(key, (ignored, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final Duration verifyInterval;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<String> authorsChangedDuringRecount = new HashSet<>();
+    private final Set<Integer> yearsChangedDuringRecount = new HashSet<>();
+    private boolean totalChangedDuringRecount;
+    private final LongAdder driftedKeys = new LongAdder();
+    private final ScheduledExecutorService verifier;
+
+    private Aggregates live = new Aggregates();
+    private Aggregates recount;
+    private volatile boolean ready;
+
+    @Autowired
+    public BookStatistics(BookRepository bookRepository,
+                          @Value("${books.stats.enabled:true}") boolean enabled,
+                          @Value("${books.stats.verify-interval:1h}") Duration verifyInterval) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.verifyInterval = verifyInterval;
+        this.verifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-stats-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //The first recount builds the counts; later ones run every verify-interval (zero turns them off)
+    @EventListener(ApplicationReadyEvent.class)
+    public void startInBackground() {
+
+        if (!enabled) {
+            return;
+        }
+
+        verifier.execute(this::verifyQuietly);
+        if (verifyInterval.isPositive()) {
+            verifier.scheduleWithFixedDelay(this::verifyQuietly,
+                    verifyInterval.toMillis(), verifyInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            live.apply(event);
+            if (recount != null) {
+                recordChangedDuringRecount(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long countByAuthor(String author) {
+        lock.readLock().lock();
+        try {
+            return live.byAuthor.getOrDefault(author, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByYear(int publicationYear) {
+        lock.readLock().lock();
+        try {
+            return live.byYear.getOrDefault(publicationYear, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<YearBookCount> countsByYear() {
+        lock.readLock().lock();
+        try {
+            List<YearBookCount> counts = new ArrayList<>(live.byYear.size());
+            new TreeMap<>(live.byYear).forEach((year, books) -> counts.add(new YearBookCount(year, books)));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BookStatsSummary summary() {
+        lock.readLock().lock();
+        try {
+            return new BookStatsSummary(live.books, live.byAuthor.size(), live.byYear.size(), ready);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    //Streams every book into fresh counts while events keep updating the live ones, then compares and swaps.
+    //Drift left by the first build is not reported, since there was nothing to compare against yet; buckets
+    //written to while it ran may be off by those writes until the next recount.
+    public synchronized BookStatsVerification verify() {
+
+        long start = System.nanoTime();
+
+        lock.writeLock().lock();
+        try {
+            recount = new Aggregates();
+            clearChangedDuringRecount();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long rows;
+        try {
+            rows = bookRepository.streamBooks(this::recount);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                recount = null;
+                clearChangedDuringRecount();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        BookStatsVerification verification;
+        boolean firstBuild = !ready;
+
+        lock.writeLock().lock();
+        try {
+            Aggregates recounted = recount;
+            if (!firstBuild) {
+                keepLive(recounted.byAuthor, live.byAuthor, authorsChangedDuringRecount);
+                keepLive(recounted.byYear, live.byYear, yearsChangedDuringRecount);
+                if (totalChangedDuringRecount) {
+                    recounted.books = live.books;
+                }
+            }
+            verification = new BookStatsVerification(rows,
+                    firstBuild ? 0 : recounted.books - live.books,
+                    firstBuild ? Map.of() : drift(live.byAuthor, recounted.byAuthor),
+                    firstBuild ? Map.of() : drift(live.byYear, recounted.byYear),
+                    (System.nanoTime() - start) / 1_000_000);
+
+            live = recounted;
+            recount = null;
+            clearChangedDuringRecount();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int drifted = verification.authorDrift().size() + verification.yearDrift().size();
+        if (drifted > 0 || verification.booksDrift() != 0) {
+            driftedKeys.add(drifted);
+            log.warn("Book statistics drifted: books {}, authors {}, years {}; counts were rebuilt",
+                    verification.booksDrift(), verification.authorDrift(), verification.yearDrift());
+        } else {
+            log.info("Book statistics verified over {} books in {} ms", rows, verification.durationMillis());
+        }
+
+        return verification;
+    }
+
+    private void verifyQuietly() {
+        try {
+            verify();
+        } catch (RuntimeException e) {
+            log.error("Book statistics recount failed: {}", e.getMessage());
+        }
+    }
+
+    private void recount(Book book) {
+
+        lock.writeLock().lock();
+        try {
+            if (recount != null) {
+                recount.add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //A streamed row may be older or newer than an event that arrives meanwhile, so the buckets such an event
+    //touches cannot be compared; they keep their live counts and are checked by a later recount
+    private void recordChangedDuringRecount(BookChangedEvent event) {
+
+        for (Book book : new Book[]{event.previous(), event.current()}) {
+            if (book != null) {
+                authorsChangedDuringRecount.add(book.getAuthor());
+                if (book.getPublicationYear() != null) {
+                    yearsChangedDuringRecount.add(book.getPublicationYear());
+                }
+            }
+        }
+        if (event.changeType() != BookChangedEvent.ChangeType.UPDATED) {
+            totalChangedDuringRecount = true;
+        }
+    }
+
+    private void clearChangedDuringRecount() {
+        authorsChangedDuringRecount.clear();
+        yearsChangedDuringRecount.clear();
+        totalChangedDuringRecount = false;
+    }
+
+    private static <K> void keepLive(Map<K, Long> recounted, Map<K, Long> live, Set<K> keys) {
+        for (K key : keys) {
+            Long count = live.get(key);
+            if (count == null) {
+                recounted.remove(key);
+            } else {
+                recounted.put(key, count);
+            }
+        }
+    }
+
+    private static <K> Map<K, Long> drift(Map<K, Long> tracked, Map<K, Long> recounted) {
+
+        Set<K> keys = new HashSet<>(tracked.keySet());
+        keys.addAll(recounted.keySet());
+
+        Map<K, Long> drift = new HashMap<>();
+        for (K key : keys) {
+            long delta = recounted.getOrDefault(key, 0L) - tracked.getOrDefault(key, 0L);
+            if (delta != 0) {
+                drift.put(key, delta);
+            }
+        }
+
+        return drift.isEmpty() ? Map.of() : new TreeMap<>(drift);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("books.stats.books", this, statistics -> statistics.summary().totalBooks())
+                .register(meterRegistry);
+        FunctionCounter.builder("books.stats.drift", driftedKeys, LongAdder::sum)
+                .description("Author and year counts found wrong by a recount")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        verifier.shutdownNow();
+    }
+}
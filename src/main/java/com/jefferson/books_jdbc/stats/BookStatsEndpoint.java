@@ -0,0 +1,27 @@
+package com.jefferson.books_jdbc.stats;
+
+import com.jefferson.books_jdbc.dto.BookStatsVerification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+//Recounts from the table now instead of waiting for the scheduled run. A recount streams every book, so it lives
+//on the management side and is only reachable where operators expose it, not on the public book API.
+@Component
+@Endpoint(id = "bookstats")
+public class BookStatsEndpoint {
+
+    private final BookStatistics bookStatistics;
+
+    @Autowired
+    public BookStatsEndpoint(BookStatistics bookStatistics) {
+        this.bookStatistics = bookStatistics;
+    }
+
+    @WriteOperation
+    public BookStatsVerification verify() {
+
+        return bookStatistics.verify();
+    }
+}
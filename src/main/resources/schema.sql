@@ -1,6 +1,11 @@
-CREATE TABLE books (
-    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+-- Idempotent, so initialization against an existing (warm) database is a few no-op statements
+CREATE TABLE IF NOT EXISTS books (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     title VARCHAR(255) NOT NULL,
     author VARCHAR(255) NOT NULL,
-    publication_year INTEGER CHECK(publication_year <= EXTRACT(YEAR FROM CURRENT_DATE))
-);
\ No newline at end of file
+    publication_year INTEGER CHECK(publication_year <= EXTRACT(YEAR FROM CURRENT_DATE)),
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_books_author_id ON books (author, id);
+CREATE INDEX IF NOT EXISTS idx_books_publication_year_id ON books (publication_year, id);
@@ -0,0 +1,161 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.datasource.AdaptivePoolController;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.repository.BookRepositoryImpl;
+import com.jefferson.books_jdbc.repository.BookRepositoryMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+//BookRepositoryImpl.getBookById latency under a step change in load, with a statically sized pool and with
+//AdaptivePoolController. Each connection is held for an extra simulated round trip, so the pool and not the CPU
+//is what callers queue on, as they would against a networked database.
+//./mvnw -Pload-test verify -DskipTests -Dload.runner=com.jefferson.books_jdbc.benchmark.AdaptivePoolLoadRunner [-Dload.clients=64 -Dload.seconds=20]
+public final class AdaptivePoolLoadRunner {
+
+    private static final int BOOKS = 10_000;
+    private static final int BASE_CLIENTS = 8;
+    private static final int STATIC_POOL_SIZE = 8;
+    private static final Duration ROUND_TRIP = Duration.ofMillis(2);
+
+    private record Phase(String name, int clients, Duration duration) {
+    }
+
+    //Sleeps after handing out a connection: time the connection is busy without using the CPU
+    private static final class RoundTripDataSource extends DelegatingDataSource {
+
+        RoundTripDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                Thread.sleep(ROUND_TRIP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+
+    private AdaptivePoolLoadRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int burstClients = Integer.getInteger("load.clients", 64);
+        Duration burst = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+
+        Phase[] phases = {
+                new Phase("steady", BASE_CLIENTS, Duration.ofSeconds(10)),
+                new Phase("burst", burstClients, burst),
+                new Phase("after", BASE_CLIENTS, Duration.ofSeconds(10))
+        };
+
+        Path database = Files.createTempDirectory("adaptive-pool");
+        String jdbcUrl = "jdbc:h2:file:" + database.resolve("books");
+        BenchmarkDatabase.seeded(jdbcUrl, BOOKS).close();
+
+        for (boolean adaptive : new boolean[]{false, true}) {
+
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            try (HikariDataSource pool = new HikariDataSource()) {
+                pool.setJdbcUrl(jdbcUrl);
+                pool.setUsername("sa");
+                pool.setPoolName(adaptive ? "adaptive" : "static");
+                pool.setMaximumPoolSize(STATIC_POOL_SIZE);
+                pool.setMinimumIdle(STATIC_POOL_SIZE);
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+                DataSource dataSource = new RoundTripDataSource(pool);
+                BookRepository bookRepository = new BookRepositoryImpl(new JdbcTemplate(dataSource),
+                        new BookRepositoryMetrics(meterRegistry), 500, 1000, 1000);
+                bookRepository.getBookById(1L);
+
+                AdaptivePoolController controller = null;
+                if (adaptive) {
+                    controller = new AdaptivePoolController(dataSource, STATIC_POOL_SIZE, burstClients,
+                            Duration.ofMillis(250), Duration.ofMillis(5), 0.5, 2, 20, 2, 0.5);
+                    controller.bindTo(meterRegistry);
+                    controller.start();
+                }
+
+                for (Phase phase : phases) {
+                    long[] latencies = run(bookRepository, phase);
+                    System.out.printf("%-8s %-6s %3d clients: %,d calls, p50 %.2f ms, p99 %.2f ms, max %.2f ms, pool %d%n",
+                            adaptive ? "adaptive" : "static", phase.name(), phase.clients(), latencies.length,
+                            percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0),
+                            pool.getMaximumPoolSize());
+                }
+
+                if (controller != null) {
+                    meterRegistry.find("books.datasource.adaptive.decisions").functionCounters().forEach(counter ->
+                            System.out.printf("  %s decisions: %.0f%n", counter.getId().getTag("action"), counter.count()));
+                }
+            }
+        }
+    }
+
+    private static long[] run(BookRepository bookRepository, Phase phase) throws InterruptedException {
+
+        long deadline = System.nanoTime() + phase.duration().toNanos();
+        long[][] samples = new long[phase.clients()][];
+        int[] counts = new int[phase.clients()];
+        Thread[] threads = new Thread[phase.clients()];
+
+        for (int client = 0; client < phase.clients(); client++) {
+            int index = client;
+            threads[client] = Thread.ofPlatform().start(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    bookRepository.getBookById(ThreadLocalRandom.current().nextLong(1, BOOKS + 1));
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                samples[index] = latencies;
+                counts[index] = count;
+            });
+        }
+
+        int total = 0;
+        for (int client = 0; client < threads.length; client++) {
+            threads[client].join();
+            total += counts[client];
+        }
+
+        long[] all = new long[total];
+        int offset = 0;
+        for (int client = 0; client < threads.length; client++) {
+            System.arraycopy(samples[client], 0, all, offset, counts[client]);
+            offset += counts[client];
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
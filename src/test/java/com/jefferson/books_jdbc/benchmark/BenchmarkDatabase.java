@@ -0,0 +1,90 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.repository.BookRepositoryImpl;
+import com.jefferson.books_jdbc.repository.BookRepositoryMetrics;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+//Embedded H2 catalog shared by the benchmarks: a schema.sql database seeded with a given number of books
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final BookRepositoryImpl bookRepository;
+    private final int seededRows;
+
+    private BenchmarkDatabase(String jdbcUrl, int seededRows) {
+        // Without a Spring Boot logging setup logback defaults to DEBUG, which would dominate request benchmarks
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        this.dataSource = new HikariDataSource();
+        this.dataSource.setJdbcUrl(jdbcUrl);
+        this.dataSource.setUsername("sa");
+        this.dataSource.setMaximumPoolSize(8);
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.bookRepository = new BookRepositoryImpl(jdbcTemplate, new BookRepositoryMetrics(new SimpleMeterRegistry()), 500, 1000, 1000);
+        this.seededRows = seededRows;
+
+        seed(bookRepository, seededRows);
+    }
+
+    static BenchmarkDatabase seeded(int rows) {
+        return new BenchmarkDatabase("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", rows);
+    }
+
+    //A database the application itself can open after this one is closed, e.g. an H2 file url
+    static BenchmarkDatabase seeded(String jdbcUrl, int rows) {
+        return new BenchmarkDatabase(jdbcUrl, rows);
+    }
+
+    BookRepository bookRepository() {
+        return bookRepository;
+    }
+
+    BookRepositoryImpl bookRepositoryImpl() {
+        return bookRepository;
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    int seededRows() {
+        return seededRows;
+    }
+
+    static List<Book> newBooks(String title, int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(null, title + " " + i, "Author " + (i % 1_000), 1950 + i % 70));
+        }
+        return books;
+    }
+
+    private static void seed(BookRepository bookRepository, int rows) {
+        for (int from = 0; from < rows; from += 10_000) {
+            bookRepository.createBooks(newBooks("Seeded", Math.min(10_000, rows - from)));
+        }
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.cache.BookCache;
+import com.jefferson.books_jdbc.cache.BookIdFilter;
+import com.jefferson.books_jdbc.mapper.BookMapperImpl;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.search.BookSearchIndex;
+import com.jefferson.books_jdbc.service.BookService;
+import com.jefferson.books_jdbc.service.BookServiceImpl;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+
+import java.time.Duration;
+
+//Builds the service the way the application context does: the implementation behind a method-validation proxy
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    static BookService validatedBookService(BookRepository bookRepository, boolean cacheEnabled) {
+
+        BookService bookService = new BookServiceImpl(bookRepository, new BookMapperImpl(),
+                new BookCache(cacheEnabled, 10_000, Duration.ofMinutes(10)),
+                new BookSearchIndex(bookRepository, false, 10_000),
+                new BookIdFilter(bookRepository, false, 100_000, 0.01, Duration.ZERO), event -> { });
+
+        var validatorFactory = new LocalValidatorFactoryBean();
+        validatorFactory.afterPropertiesSet();
+
+        var proxyFactory = new ProxyFactory(bookService);
+        proxyFactory.addAdvice(new MethodValidationInterceptor(validatorFactory.getValidator()));
+
+        return (BookService) proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,75 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.books_jdbc.controller.BookController;
+import com.jefferson.books_jdbc.exception.GlobalExceptionHandler;
+import com.jefferson.books_jdbc.service.BookAsyncServiceImpl;
+import com.jefferson.books_jdbc.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+//End-to-end request path: dispatcher, controller, validated service, repository on H2 and JSON rendering
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookControllerBenchmark {
+
+    @Param({"1000", "100000"})
+    private int tableSize;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private BenchmarkDatabase database;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seeded(tableSize);
+
+        BookService bookService = BenchmarkServices.validatedBookService(database.bookRepository(), cacheEnabled);
+        BookController bookController = new BookController(
+                bookService,
+                new BookAsyncServiceImpl(bookService, 10, 100, false, Duration.ofSeconds(10)),
+                null, // the import endpoint is not exercised here
+                new ObjectMapper());
+
+        mockMvc = MockMvcBuilders.standaloneSetup(bookController)
+                .setControllerAdvice(new GlobalExceptionHandler(Duration.ofSeconds(1), 10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public MvcResult getBook() throws Exception {
+        return perform(get("/api/v1/book/{id}", ThreadLocalRandom.current().nextLong(1, tableSize + 1)));
+    }
+
+    @Benchmark
+    public MvcResult getMissingBook() throws Exception {
+        return perform(get("/api/v1/book/{id}", tableSize + 1_000_000L));
+    }
+
+    //The controller hands reads to the JDBC executor, so a request is only complete after the async dispatch
+    private MvcResult perform(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder).andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult)).andReturn();
+    }
+}
@@ -0,0 +1,33 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.mapper.BookMapper;
+import com.jefferson.books_jdbc.mapper.BookMapperImpl;
+import com.jefferson.books_jdbc.model.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookMapperBenchmark {
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final Book book = new Book(1L, "Effective Java", "Joshua Bloch", 2018);
+    private final BookRequest bookRequest = new BookRequest("Clean Code", "Robert Martin", 2008);
+
+    @Benchmark
+    public BookDto toDto() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return bookMapper.toEntity(bookRequest);
+    }
+}
@@ -0,0 +1,79 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookFilter;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    private int tableSize;
+
+    private BenchmarkDatabase database;
+    private BookRepository bookRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seeded(tableSize);
+        bookRepository = database.bookRepository();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<Book> getBookById() {
+        return bookRepository.getBookById(randomId());
+    }
+
+    @Benchmark
+    public List<Book> getBooksByIds50() {
+        long first = randomId();
+        return bookRepository.getBooksByIds(LongStream.range(first, first + 50).boxed().toList());
+    }
+
+    @Benchmark
+    public List<Book> getBooksAfterPage100() {
+        return bookRepository.getBooksAfter(randomId(), 100, BookFilter.NONE);
+    }
+
+    //Exercises the GeneratedKeyHolder insert path
+    @Benchmark
+    public Book createNewBook() {
+        return bookRepository.createNewBook(new Book(null, "Benchmark", "Benchmark Author", 2020));
+    }
+
+    //Baseline for createBooks100: the same rows, one INSERT per book
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public List<Book> createNewBook100() {
+        List<Book> books = BenchmarkDatabase.newBooks("Single", 100);
+        books.forEach(bookRepository::createNewBook);
+        return books;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public List<Book> createBooks100() {
+        return bookRepository.createBooks(BenchmarkDatabase.newBooks("Batched", 100));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, tableSize + 1);
+    }
+}
@@ -0,0 +1,41 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.search.BookSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//First page of a search against a one-million-book index, by how many books the query matches:
+//"w42" about 200, "w42 common" about 20, "common" 100k, and "book" every title.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BookSearchBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    @Param({"w42", "w42 common", "common", "book"})
+    private String query;
+
+    private BookSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        searchIndex = new BookSearchIndex(null, true, 10_000);
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            String title = "Book w" + id % 5_000 + (id % 10 == 0 ? " common" : "");
+            Book book = new Book(id, title, "Author a" + id % 20_000, 2000);
+            searchIndex.onBookChanged(BookChangedEvent.created(book));
+        }
+    }
+
+    @Benchmark
+    public BookSearchIndex.SearchHits firstPage() {
+        return searchIndex.search(query, 0, 20);
+    }
+}
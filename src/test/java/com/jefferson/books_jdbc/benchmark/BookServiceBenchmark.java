@@ -0,0 +1,50 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.service.BookService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int tableSize;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private BenchmarkDatabase database;
+    private BookService bookService;
+    private final BookRequest bookRequest = new BookRequest("Benchmark", "Benchmark Author", 2020);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.seeded(tableSize);
+        bookService = BenchmarkServices.validatedBookService(database.bookRepository(), cacheEnabled);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    //Validation proxy + repository + mapping (+ cache when enabled)
+    @Benchmark
+    public BookDto getBookById() {
+        return bookService.getBookById(ThreadLocalRandom.current().nextLong(1, tableSize + 1));
+    }
+
+    @Benchmark
+    public BookDto createNewBook() {
+        return bookService.createNewBook(bookRequest);
+    }
+}
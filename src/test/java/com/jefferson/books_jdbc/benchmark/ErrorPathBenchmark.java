@@ -0,0 +1,65 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.exception.BookNotFoundException;
+import com.jefferson.books_jdbc.exception.GlobalExceptionHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//404 path in isolation: throw at the depth of a request stack, unwind, then turn it into a response.
+//previousNotFound is the path before the error handling rework (full stack trace, a log line per request);
+//notFound is the current one (no stack trace, rate-limited logging, a counter per error type).
+//End-to-end 404 throughput through the dispatcher is BookControllerBenchmark.getMissingBook.
+@Slf4j
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    //A Spring MVC request through the async executor sits roughly 100 frames deep when the service throws
+    @Param({"16", "128"})
+    private int stackDepth;
+
+    private GlobalExceptionHandler exceptionHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        exceptionHandler = new GlobalExceptionHandler(Duration.ofSeconds(1), 10);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> notFound() {
+        try {
+            return throwAt(stackDepth, () -> new BookNotFoundException(1000001L));
+        } catch (BookNotFoundException e) {
+            return exceptionHandler.handleProductNotFoundException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> previousNotFound() {
+        try {
+            return throwAt(stackDepth, () -> new RuntimeException("Book not found for id: 1000001"));
+        } catch (RuntimeException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("Error", e.getMessage()));
+        }
+    }
+
+    private static <T> T throwAt(int depth, Supplier<RuntimeException> exception) {
+        if (depth == 0) {
+            throw exception.get();
+        }
+        return throwAt(depth - 1, exception);
+    }
+}
@@ -0,0 +1,92 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+//Closed-loop HTTP load: every client sends its next request as soon as the previous one is answered
+final class HttpLoadGenerator {
+
+    record Result(long requests, long errors, double throughput, double p50Millis, double p99Millis, double maxMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%,d requests (%,d errors), %.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    requests, errors, throughput, p50Millis, p99Millis, maxMillis);
+        }
+    }
+
+    private HttpLoadGenerator() {
+    }
+
+    static Result run(int clients, Duration duration, LongFunction<URI> uriForId, long maxId) throws InterruptedException {
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicLong errors = new AtomicLong();
+        Thread[] threads = new Thread[clients];
+
+        for (int client = 0; client < clients; client++) {
+            int index = client;
+            threads[client] = Thread.ofVirtual().start(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(uriForId.apply(ThreadLocalRandom.current().nextLong(1, maxId + 1)))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[index] = samples;
+                counts[index] = count;
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int client = 0; client < clients; client++) {
+            System.arraycopy(latencies[client], 0, all, offset, counts[client]);
+            offset += counts[client];
+        }
+        Arrays.sort(all);
+
+        return new Result(total, errors.get(), total / (duration.toNanos() / 1e9),
+                percentileMillis(all, 0.50), percentileMillis(all, 0.99), total == 0 ? 0 : all[total - 1] / 1e6);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,100 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Encode and decode cost of the book payloads per wire format: one BookDto, a page of BookDtos and a bulk
+//BookRequest body. Payload sizes are printed once per trial, since JMH only reports time.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "100"})
+    private int books;
+
+    private ObjectWriter dtoWriter;
+    private ObjectReader dtoReader;
+    private ObjectWriter requestWriter;
+    private ObjectReader requestReader;
+
+    private Object dtoPayload;
+    private List<BookRequest> requestPayload;
+    private byte[] encodedDtos;
+    private byte[] encodedRequests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        ObjectMapper mapper = switch (format) {
+            case "json" -> new ObjectMapper();
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+
+        List<BookDto> dtos = new ArrayList<>(books);
+        requestPayload = new ArrayList<>(books);
+        for (int i = 1; i <= books; i++) {
+            dtos.add(new BookDto((long) i, "Title of book number " + i, "Author " + (i % 50), 1900 + i % 120));
+            requestPayload.add(new BookRequest("Title of book number " + i, "Author " + (i % 50), 1900 + i % 120));
+        }
+
+        // A single book goes over the wire as an object, anything larger as an array
+        if (books == 1) {
+            dtoPayload = dtos.get(0);
+            dtoWriter = mapper.writerFor(BookDto.class);
+            dtoReader = mapper.readerFor(BookDto.class);
+        } else {
+            dtoPayload = dtos;
+            dtoWriter = mapper.writerFor(new TypeReference<List<BookDto>>() { });
+            dtoReader = mapper.readerFor(new TypeReference<List<BookDto>>() { });
+        }
+        requestWriter = mapper.writerFor(new TypeReference<List<BookRequest>>() { });
+        requestReader = mapper.readerFor(new TypeReference<List<BookRequest>>() { });
+
+        encodedDtos = dtoWriter.writeValueAsBytes(dtoPayload);
+        encodedRequests = requestWriter.writeValueAsBytes(requestPayload);
+
+        System.out.printf("%n%s, %d books: BookDto payload %d bytes, BookRequest payload %d bytes%n",
+                format, books, encodedDtos.length, encodedRequests.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBookDtos() throws IOException {
+        return dtoWriter.writeValueAsBytes(dtoPayload);
+    }
+
+    @Benchmark
+    public Object decodeBookDtos() throws IOException {
+        return dtoReader.readValue(encodedDtos);
+    }
+
+    @Benchmark
+    public byte[] encodeBookRequests() throws IOException {
+        return requestWriter.writeValueAsBytes(requestPayload);
+    }
+
+    @Benchmark
+    public Object decodeBookRequests() throws IOException {
+        return requestReader.readValue(encodedRequests);
+    }
+}
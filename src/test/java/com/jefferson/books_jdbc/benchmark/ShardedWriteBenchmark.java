@@ -0,0 +1,79 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.repository.BookRepositoryImpl;
+import com.jefferson.books_jdbc.repository.BookRepositoryMetrics;
+import com.jefferson.books_jdbc.repository.ShardIdGenerator;
+import com.jefferson.books_jdbc.repository.ShardedBookRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Write throughput as the catalog is split over more embedded databases. Every shard here shares the same
+//machine, so this shows the routing overhead and lock-contention relief, not the gain from separate hardware.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ShardedWriteBenchmark {
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private List<JdbcTemplate> templates;
+    private ShardedBookRepository bookRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BookRepositoryMetrics metrics = new BookRepositoryMetrics(new SimpleMeterRegistry());
+        List<HikariDataSource> pools = new ArrayList<>(shards);
+        List<BookRepository> repositories = new ArrayList<>(shards);
+        templates = new ArrayList<>(shards);
+
+        for (int i = 0; i < shards; i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:bench-shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            pool.setUsername("sa");
+            pool.setMaximumPoolSize(8);
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql"),
+                    new ByteArrayResource(ShardIdGenerator.createSequenceSql(1_000).getBytes())).execute(pool);
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+            pools.add(pool);
+            templates.add(jdbcTemplate);
+            repositories.add(ShardedBookRepository.transactional(new BookRepositoryImpl(jdbcTemplate, metrics, 500, 1000, 1000), pool));
+        }
+
+        bookRepository = new ShardedBookRepository(repositories, new ShardIdGenerator(templates, 1_000), pools);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        templates.forEach(jdbcTemplate -> jdbcTemplate.execute("SHUTDOWN"));
+        bookRepository.close();
+    }
+
+    @Benchmark
+    public Book createNewBook() {
+        return bookRepository.createNewBook(new Book(null, "Benchmark", "Benchmark Author", 2020));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public List<Book> createBooks100() {
+        return bookRepository.createBooks(BenchmarkDatabase.newBooks("Batched", 100));
+    }
+}
@@ -0,0 +1,58 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.SnapshotBookRepository;
+import com.jefferson.books_jdbc.repository.SnapshotMemoryReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+//Measured heap of the columnar snapshot against a HashMap<Long, Book> holding the same rows, next to the
+//snapshot's own estimate. Embedded H2 hands out the String instances it already holds, so the measured deltas are
+//the per-row structure only, while the estimate also counts each structure's strings as a remote database would.
+//./mvnw -Pload-test verify -DskipTests -Dload.runner=com.jefferson.books_jdbc.benchmark.SnapshotFootprintRunner
+public final class SnapshotFootprintRunner {
+
+    private SnapshotFootprintRunner() {
+    }
+
+    public static void main(String[] args) {
+
+        int books = Integer.getInteger("snapshot.books", 500_000);
+
+        try (BenchmarkDatabase database = BenchmarkDatabase.seeded(books)) {
+            long before = usedHeap();
+            Map<Long, Book> hashMap = new HashMap<>();
+            database.bookRepository().streamBooks(book -> hashMap.put(book.getId(), book));
+            long hashMapBytes = usedHeap() - before;
+
+            before = usedHeap();
+            SnapshotBookRepository snapshot = new SnapshotBookRepository(database.bookRepositoryImpl(),
+                    new SimpleMeterRegistry(), 1024, Duration.ZERO);
+            snapshot.reload();
+            long snapshotBytes = usedHeap() - before;
+
+            SnapshotMemoryReport estimate = snapshot.memoryReport();
+            System.out.printf("books: %d, distinct authors: %d%n", estimate.books(), estimate.authors());
+            System.out.printf("HashMap<Long, Book>: measured %.1f bytes/book, estimated %.1f%n",
+                    (double) hashMapBytes / books, estimate.hashMapBytesPerBook());
+            System.out.printf("columnar snapshot:   measured %.1f bytes/book, estimated %.1f%n",
+                    (double) snapshotBytes / books, estimate.snapshotBytesPerBook());
+
+            // Keeps both structures reachable until after the measurements
+            if (hashMap.size() + snapshot.overlaySize() < 0) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
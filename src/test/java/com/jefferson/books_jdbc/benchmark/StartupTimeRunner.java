@@ -0,0 +1,147 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Time from JVM launch to the first successful GET /api/v1/book/{id}, per startup mode, against a warm H2 file
+//database so schema initialization finds the tables already there. Each mode is a fresh JVM; the median of
+//startup.runs launches is reported. The AOT and CDS modes need the fast-startup build:
+//./mvnw -Pfast-startup,load-test verify -DskipTests -Dload.runner=com.jefferson.books_jdbc.benchmark.StartupTimeRunner
+public final class StartupTimeRunner {
+
+    private static final int BOOKS = 10_000;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private record Mode(String name, Path workingDirectory, Path jar, List<String> jvmArgs) {
+    }
+
+    private StartupTimeRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Path target = Path.of(System.getProperty("startup.target", "target")).toAbsolutePath();
+        Path jar = target.resolve(System.getProperty("startup.jar", "books_jdbc-0.0.1-SNAPSHOT.jar"));
+        Path extracted = target.resolve("fast-startup");
+        int runs = Integer.getInteger("startup.runs", 3);
+
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException("Application jar not found: " + jar + "; run the package phase first");
+        }
+
+        // Seeded once and closed, so every launched instance opens an existing database
+        Path database = target.resolve("startup-db");
+        String jdbcUrl = "jdbc:h2:file:" + database.resolve("books") + ";LAZY_QUERY_EXECUTION=TRUE";
+        deleteRecursively(database);
+        BenchmarkDatabase.seeded(jdbcUrl, BOOKS).close();
+
+        boolean aot = Files.exists(extracted.resolve(jar.getFileName()));
+        boolean cds = Files.exists(extracted.resolve("books_jdbc.jsa"));
+
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("default", target, jar, List.of()));
+        modes.add(new Mode("lazy", target, jar, List.of("-Dspring.profiles.active=fast-startup")));
+        if (aot) {
+            modes.add(new Mode("lazy+aot", extracted, extracted.resolve(jar.getFileName()),
+                    List.of("-Dspring.profiles.active=fast-startup", "-Dspring.aot.enabled=true")));
+        }
+        if (cds) {
+            modes.add(new Mode("lazy+aot+cds", extracted, extracted.resolve(jar.getFileName()),
+                    List.of("-XX:SharedArchiveFile=books_jdbc.jsa", "-Xlog:cds=off",
+                            "-Dspring.profiles.active=fast-startup", "-Dspring.aot.enabled=true")));
+        }
+        if (!aot || !cds) {
+            System.out.println("AOT/CDS modes skipped: build with -Pfast-startup to produce " + extracted);
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        for (Mode mode : modes) {
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = timeToFirstBook(mode, jdbcUrl, httpClient, target.resolve("startup-" + mode.name() + ".log"));
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-14s first GET after %,d ms (median of %d, min %,d, max %,d)%n",
+                    mode.name(), millis[runs / 2], runs, millis[0], millis[runs - 1]);
+        }
+    }
+
+    private static long timeToFirstBook(Mode mode, String jdbcUrl, HttpClient httpClient, Path log) throws Exception {
+
+        int port = freePort();
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArgs());
+        command.add("-jar");
+        command.add(mode.jar().toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=" + jdbcUrl);
+        // BenchmarkDatabase creates the file as sa without a password
+        command.add("--spring.datasource.password=");
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/book/1"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(mode.workingDirectory().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        try {
+            long deadline = start + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode.name() + " exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException(mode.name() + " did not answer within " + TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (var paths = Files.walk(directory)) {
+                paths.sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.jefferson.books_jdbc.benchmark;
+
+import com.jefferson.books_jdbc.BooksJdbcApplication;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+
+//Platform vs virtual request threads on the same endpoints and data.
+//./mvnw -Pload-test verify -DskipTests [-Dload.clients=1000 -Dload.seconds=30]
+public final class ThreadModeLoadRunner {
+
+    private static final int BOOKS = 100_000;
+
+    private ThreadModeLoadRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int clients = Integer.getInteger("load.clients", 1_000);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+
+        for (String profile : new String[]{"default", "virtual-threads"}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BooksJdbcApplication.class)
+                    .profiles(profile)
+                    .properties(
+                            "server.port=0",
+                            "books.cache.enabled=false",
+                            // Every client is admitted, so the run compares thread modes rather than load shedding
+                            "books.async.queue-capacity=" + clients,
+                            "logging.level.root=WARN",
+                            "spring.datasource.url=jdbc:h2:mem:load-" + profile + ";LAZY_QUERY_EXECUTION=TRUE")
+                    .run()) {
+
+                context.getBean(BookRepository.class).createBooks(BenchmarkDatabase.newBooks("Load", BOOKS));
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+                // Short warm-up so both modes are measured with a compiled hot path
+                HttpLoadGenerator.run(clients, Duration.ofSeconds(5), id -> bookUri(port, id), BOOKS);
+                HttpLoadGenerator.Result result = HttpLoadGenerator.run(clients, duration, id -> bookUri(port, id), BOOKS);
+
+                System.out.printf("%-16s %d clients: %s%n", profile, clients, result);
+            }
+        }
+    }
+
+    private static URI bookUri(int port, long id) {
+        return URI.create("http://localhost:" + port + "/api/v1/book/" + id);
+    }
+}
@@ -0,0 +1,121 @@
+package com.jefferson.books_jdbc.cache;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.exception.BookNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookCacheTest {
+
+    @Test
+    void get_RepeatedKey_LoadsOnceAndCountsHit() {
+        BookCache bookCache = new BookCache(true, 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        bookCache.get(1L, id -> load(id, loads));
+        BookDto result = bookCache.get(1L, id -> load(id, loads));
+
+        assertEquals(1L, result.id());
+        assertEquals(1, loads.get());
+        assertEquals(1, bookCache.stats().hitCount());
+        assertEquals(1, bookCache.stats().missCount());
+    }
+
+    @Test
+    void get_LoaderThrows_DoesNotCacheMiss() {
+        BookCache bookCache = new BookCache(true, 10, Duration.ofMinutes(1));
+
+        assertThrows(BookNotFoundException.class, () -> bookCache.get(1L, id -> {
+            throw new BookNotFoundException("Book not found for id: " + id);
+        }));
+
+        assertEquals(0, bookCache.size());
+    }
+
+    @Test
+    void invalidate_CachedKey_ForcesReload() {
+        BookCache bookCache = new BookCache(true, 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        bookCache.get(1L, id -> load(id, loads));
+        bookCache.invalidate(1L);
+        bookCache.get(1L, id -> load(id, loads));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_DuringLoad_DoesNotWaitAndKeepsLoadOutOfCache() {
+        BookCache bookCache = new BookCache(true, 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        // When: a write lands on another thread while the row is being read
+        BookDto result = bookCache.get(1L, id -> {
+            BookDto stale = load(id, loads);
+            CompletableFuture.runAsync(() -> bookCache.invalidate(id)).orTimeout(5, TimeUnit.SECONDS).join();
+            return stale;
+        });
+
+        // Then
+        assertEquals(1L, result.id());
+        assertNull(bookCache.getIfPresent(1L));
+        bookCache.get(1L, id -> load(id, loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadAll_InvalidatedDuringLoad_CachesOnlyOtherRows() {
+        BookCache bookCache = new BookCache(true, 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        // When: book 2 is written while the batch is being read
+        List<BookDto> loaded = bookCache.loadAll(List.of(1L, 2L), ids -> {
+            List<BookDto> rows = ids.stream().map(id -> load(id, loads)).toList();
+            bookCache.invalidate(2L);
+            return rows;
+        });
+
+        // Then
+        assertEquals(2, loaded.size());
+        assertNotNull(bookCache.getIfPresent(1L));
+        assertNull(bookCache.getIfPresent(2L));
+    }
+
+    @Test
+    void loadAll_OverMaximumSize_EvictsEntries() {
+        BookCache bookCache = new BookCache(true, 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Long> ids = LongStream.rangeClosed(1, 50).boxed().toList();
+        bookCache.loadAll(ids, missing -> missing.stream().map(id -> load(id, loads)).toList());
+        bookCache.cleanUp();
+
+        assertTrue(bookCache.size() <= 10);
+        assertTrue(bookCache.stats().evictionCount() >= 40);
+    }
+
+    @Test
+    void get_Disabled_AlwaysLoads() {
+        BookCache bookCache = new BookCache(false, 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        bookCache.get(1L, id -> load(id, loads));
+        bookCache.get(1L, id -> load(id, loads));
+
+        assertEquals(2, loads.get());
+        assertTrue(bookCache.getAllPresent(List.of(1L)).isEmpty());
+    }
+
+    private static BookDto load(Long id, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new BookDto(id, "Title " + id, "Author", 2000);
+    }
+}
@@ -0,0 +1,138 @@
+package com.jefferson.books_jdbc.cache;
+
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookIdFilterTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private List<Book> storedBooks;
+    private BookIdFilter bookIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        storedBooks = new ArrayList<>();
+        LongStream.rangeClosed(1, 1000).forEach(id -> storedBooks.add(new Book(id, "Title " + id, "Author", 2000)));
+
+        bookIdFilter = new BookIdFilter(bookRepository, true, 1000, 0.01, Duration.ZERO);
+    }
+
+    private void stubStream() {
+        when(bookRepository.streamBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            new ArrayList<>(storedBooks).forEach(consumer);
+            return (long) storedBooks.size();
+        });
+    }
+
+    @Test
+    void mightExist_BeforeFirstBuild_LetsEveryIdThrough() {
+        assertFalse(bookIdFilter.isReady());
+        assertTrue(bookIdFilter.mightExist(12345L));
+    }
+
+    @Test
+    void mightExist_StoredIds_AreNeverRejected() {
+        stubStream();
+
+        assertEquals(1000, bookIdFilter.rebuild());
+
+        assertTrue(bookIdFilter.isReady());
+        assertTrue(LongStream.rangeClosed(1, 1000).allMatch(bookIdFilter::mightExist));
+    }
+
+    @Test
+    void mightExist_AbsentIds_MostlyRejected() {
+        stubStream();
+        bookIdFilter.rebuild();
+
+        long passed = LongStream.rangeClosed(1_000_001, 1_010_000).filter(bookIdFilter::mightExist).count();
+
+        // Sized for 0.01 at twice the stored rows, so about 0.3% of absent ids should get through
+        assertTrue(passed < 300, "passed " + passed);
+        assertTrue(bookIdFilter.expectedFalsePositiveRate() < 0.01);
+    }
+
+    @Test
+    void onBookChanged_CreatedBook_IsAddedToBuiltFilter() {
+        stubStream();
+        bookIdFilter.rebuild();
+
+        bookIdFilter.onBookChanged(BookChangedEvent.created(new Book(5_000_000L, "New", "Author", 2024)));
+
+        assertTrue(bookIdFilter.mightExist(5_000_000L));
+    }
+
+    @Test
+    void rebuild_BookCreatedWhileStreaming_IsKept() {
+        when(bookRepository.streamBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(storedBooks.get(0));
+            // Committed after the stream read past its position
+            bookIdFilter.onBookChanged(BookChangedEvent.created(new Book(7_000_000L, "New", "Author", 2024)));
+            return 1L;
+        });
+
+        bookIdFilter.rebuild();
+
+        assertTrue(bookIdFilter.mightExist(7_000_000L));
+    }
+
+    @Test
+    void rebuild_DeletedIds_AreDropped() {
+        stubStream();
+        bookIdFilter.rebuild();
+        storedBooks.removeIf(book -> book.getId() > 10);
+
+        bookIdFilter.onBookChanged(BookChangedEvent.deleted(500L, null));
+        assertTrue(bookIdFilter.mightExist(500L));
+
+        bookIdFilter.rebuild();
+
+        long passed = LongStream.rangeClosed(11, 1000).filter(bookIdFilter::mightExist).count();
+        assertTrue(passed < 50, "passed " + passed);
+    }
+
+    @Test
+    void bindTo_ReportsRejectedLookupsAndFalsePositives() {
+        stubStream();
+        bookIdFilter.rebuild();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        bookIdFilter.bindTo(meterRegistry);
+
+        bookIdFilter.mightExist(1L);
+        long rejected = LongStream.rangeClosed(1_000_001, 1_000_100).filter(id -> !bookIdFilter.mightExist(id)).count();
+        bookIdFilter.recordFalsePositive();
+
+        assertEquals(rejected, meterRegistry.get("books.bloom.lookups").tag("result", "rejected")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("books.bloom.false.positives").functionCounter().count());
+        assertEquals(1.0 / (rejected + 1), meterRegistry.get("books.bloom.false.positive.rate").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void constructor_InvalidFalsePositiveRate_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookIdFilter(bookRepository, true, 1000, 1.5, Duration.ZERO));
+    }
+}
@@ -0,0 +1,128 @@
+package com.jefferson.books_jdbc.cache;
+
+import com.jefferson.books_jdbc.exception.BookNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_ConcurrentCallers_ShareOneLoad() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = burst(() -> singleFlight.load(1L, id -> {
+            loads.incrementAndGet();
+            await(release);
+            return "book " + id;
+        }));
+        waitUntil(() -> singleFlight.coalesced() == CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("book 1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.loads());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void load_LoaderThrows_EveryCallerGetsTheError() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = burst(() -> singleFlight.load(1L, id -> {
+            await(release);
+            throw new BookNotFoundException("Book not found for id: " + id);
+        }));
+        waitUntil(() -> singleFlight.coalesced() == CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(BookNotFoundException.class, exception.getCause());
+        }
+        assertEquals(1, singleFlight.loads());
+    }
+
+    @Test
+    void load_AfterCompletion_LoadsAgain() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load(1L, id -> "load " + loads.incrementAndGet());
+        String second = singleFlight.load(1L, id -> "load " + loads.incrementAndGet());
+
+        assertEquals("load 2", second);
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    void forget_InFlightKey_NextCallerStartsNewLoad() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> stale = executor.submit(() -> singleFlight.load(1L, id -> {
+            await(release);
+            return "stale";
+        }));
+        waitUntil(() -> singleFlight.inFlight() == 1);
+
+        singleFlight.forget(1L);
+        String fresh = singleFlight.load(1L, id -> "fresh");
+        release.countDown();
+
+        assertEquals("fresh", fresh);
+        assertEquals("stale", stale.get(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    private List<Future<String>> burst(Callable<String> call) {
+        List<Future<String>> results = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call));
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for callers to join the load");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -1,30 +1,64 @@
 package com.jefferson.books_jdbc.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookImportRejection;
+import com.jefferson.books_jdbc.dto.BookImportSummary;
+import com.jefferson.books_jdbc.dto.BookPage;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
 import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.dto.BooksByIdsResponse;
 import com.jefferson.books_jdbc.exception.BookNotFoundException;
+import com.jefferson.books_jdbc.importer.BookImportFormat;
+import com.jefferson.books_jdbc.repository.BookField;
+import com.jefferson.books_jdbc.service.BookAsyncServiceImpl;
+import com.jefferson.books_jdbc.service.BookImportService;
 import com.jefferson.books_jdbc.service.BookService;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Path;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest(BookController.class)
+@Import({BookAsyncServiceImpl.class, BinaryFormatConfig.class})
+@TestPropertySource(properties = {"books.async.pool-size=1", "books.async.queue-capacity=1"})
 public class BookControllerTest {
 
     @Autowired
@@ -36,6 +70,9 @@ public class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BookImportService bookImportService;
+
     private BookDto bookDto;
     private BookRequest bookRequest;
 
@@ -48,10 +85,10 @@ public class BookControllerTest {
     @Test
     void getBook_ExistingId_ReturnsBook() throws Exception {
         // Given
-        when(bookService.getBookById(1L)).thenReturn(bookDto);
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(bookDto);
 
         // When & Then
-        mockMvc.perform(get("/api/v1/book/{id}", 1L)
+        perform(get("/api/v1/book/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1L))
@@ -59,36 +96,293 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.author").value("Test Author"))
                 .andExpect(jsonPath("$.publicationYear").value(2024));
 
-        verify(bookService).getBookById(1L);
+        verify(bookService).getBookById(1L, BookField.ALL);
     }
 
     @Test
     void getBook_NonExistingId_ReturnsNotFound() throws Exception {
         // Given
-        when(bookService.getBookById(999L))
+        when(bookService.getBookById(999L, BookField.ALL))
                 .thenThrow(new BookNotFoundException("Book not found for id: 999"));
 
         // When & Then
-        mockMvc.perform(get("/api/v1/book/{id}", 999L)
+        perform(get("/api/v1/book/{id}", 999L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.Error").value("Book not found for id: 999"));
 
-        verify(bookService).getBookById(999L);
+        verify(bookService).getBookById(999L, BookField.ALL);
     }
 
     @Test
     void getBook_ServiceThrowsConstraintViolation_ReturnsBadRequest() throws Exception {
         // Given
-        when(bookService.getBookById(-1L))
+        when(bookService.getBookById(-1L, BookField.ALL))
                 .thenThrow(new ConstraintViolationException("Validation failed", Set.of()));
 
         // When & Then
-        mockMvc.perform(get("/api/v1/book/{id}", -1L)
+        perform(get("/api/v1/book/{id}", -1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
 
-        verify(bookService).getBookById(-1L);
+        verify(bookService).getBookById(-1L, BookField.ALL);
+    }
+
+    @Test
+    void getBook_Fields_OmitsUnrequestedFields() throws Exception {
+        // Given
+        when(bookService.getBookById(1L, Set.of(BookField.ID, BookField.VERSION, BookField.TITLE)))
+                .thenReturn(new BookDto(1L, "Test Book", null, null));
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L)
+                        .param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":1,\"title\":\"Test Book\"}", true));
+    }
+
+    @Test
+    void getBook_NullPublicationYear_WritesNull() throws Exception {
+        // Given
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(new BookDto(1L, "Test Book", "Test Author", null));
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().json(
+                        "{\"id\":1,\"title\":\"Test Book\",\"author\":\"Test Author\",\"publicationYear\":null}", true));
+    }
+
+    @Test
+    void getBook_Versioned_ReturnsETag() throws Exception {
+        // Given
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 3L));
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void getBook_IfNoneMatchCurrentVersion_ReturnsNotModified() throws Exception {
+        // Given
+        when(bookService.getBookVersion(1L)).thenReturn(3L);
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(bookService, never()).getBookById(any(), any());
+    }
+
+    @Test
+    void getBook_IfNoneMatchStaleVersion_ReturnsBook() throws Exception {
+        // Given
+        when(bookService.getBookVersion(1L)).thenReturn(4L);
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 4L));
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void updateBook_IfMatch_PassesExpectedVersion() throws Exception {
+        // Given
+        when(bookService.updateBookInfo(eq(1L), any(BookRequest.class), eq(3L)))
+                .thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 4L));
+
+        // When & Then
+        perform(put("/api/v1/book/update/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void updateBook_IfMatchStale_ReturnsPreconditionFailed() throws Exception {
+        // Given
+        when(bookService.updateBookInfo(eq(1L), any(BookRequest.class), eq(3L)))
+                .thenThrow(new OptimisticLockingFailureException("Book 1 was modified since version 3"));
+
+        // When & Then
+        perform(put("/api/v1/book/update/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookRequest)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.Error").value("Book 1 was modified since version 3"));
+    }
+
+    @Test
+    void updateBook_IfMatchWeakETag_ReturnsPreconditionFailed() throws Exception {
+        perform(put("/api/v1/book/update/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookRequest)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(bookService, never()).updateBookInfo(any(), any(), any());
+    }
+
+    @Test
+    void patchBook_MergePatch_ReturnsPatchedBook() throws Exception {
+        // Given
+        when(bookService.patchBook(1L, new BookPatchRequest("New Title", null, null), 2L))
+                .thenReturn(new BookDto(1L, "New Title", "Test Author", 2024, 3L));
+
+        // When & Then
+        perform(patch("/api/v1/book/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"title\":\"New Title\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("New Title"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void patchBook_ExplicitNull_ReturnsBadRequest() throws Exception {
+        perform(patch("/api/v1/book/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"author\":null}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).patchBook(any(), any(), any());
+    }
+
+    @Test
+    void patchBook_UnknownMember_ReturnsBadRequest() throws Exception {
+        perform(patch("/api/v1/book/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"isbn\":\"123\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).patchBook(any(), any(), any());
+    }
+
+    @Test
+    void getBook_UnknownField_ReturnsBadRequest() throws Exception {
+        perform(get("/api/v1/book/{id}", 1L)
+                        .param("fields", "title,isbn"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.Error").value("Unknown book field: isbn"));
+    }
+
+    @Test
+    void getBooks_ByIds_ReturnsBooksAndMissingIds() throws Exception {
+        // Given
+        when(bookService.getBooksByIds(List.of(1L, 999L), BookField.ALL))
+                .thenReturn(new BooksByIdsResponse(List.of(bookDto), List.of(999L)));
+
+        // When & Then
+        perform(get("/api/v1/book")
+                        .param("ids", "1,999")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id").value(1L))
+                .andExpect(jsonPath("$.missingIds[0]").value(999L));
+
+        verify(bookService).getBooksByIds(List.of(1L, 999L), BookField.ALL);
+    }
+
+    @Test
+    void getBooks_CursorAndFilters_ReturnsPage() throws Exception {
+        // Given
+        when(bookService.getBooks(10L, 1, "Test Author", 2024, BookField.ALL))
+                .thenReturn(new BookPage(List.of(bookDto), 1L));
+
+        // When & Then
+        perform(get("/api/v1/book")
+                        .param("after", "10")
+                        .param("limit", "1")
+                        .param("author", "Test Author")
+                        .param("year", "2024")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value(1L));
+
+        verify(bookService).getBooks(10L, 1, "Test Author", 2024, BookField.ALL);
+    }
+
+    @Test
+    void searchBooks_Query_ReturnsRankedPage() throws Exception {
+        // Given
+        when(bookService.searchBooks("test", 1, 5))
+                .thenReturn(new BookSearchResponse(List.of(bookDto), 6, false, 1, 5));
+
+        // When & Then
+        perform(get("/api/v1/book/search")
+                        .param("q", "test")
+                        .param("page", "1")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id").value(1L))
+                .andExpect(jsonPath("$.totalHits").value(6))
+                .andExpect(jsonPath("$.page").value(1));
+
+        verify(bookService).searchBooks("test", 1, 5);
+    }
+
+    @Test
+    void exportBooks_StreamsNdjson() throws Exception {
+        // Given
+        BookDto secondDto = new BookDto(2L, "Second Book", "Second Author", 2023);
+        when(bookService.exportBooks(any())).thenAnswer(invocation -> {
+            Consumer<BookDto> consumer = invocation.getArgument(0);
+            consumer.accept(bookDto);
+            consumer.accept(secondDto);
+            return 2L;
+        });
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/book/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(bookDto) + "\n"
+                                + objectMapper.writeValueAsString(secondDto) + "\n"));
+    }
+
+    @Test
+    void importBooks_Csv_ReturnsSummary() throws Exception {
+        // Given
+        when(bookImportService.importBooks(any(), eq(BookImportFormat.CSV)))
+                .thenReturn(new BookImportSummary(1, 1, Map.of("Invalid publication year", 1L),
+                        List.of(new BookImportRejection(3, "Invalid publication year"))));
+
+        // When & Then
+        perform(post("/api/v1/book/import")
+                        .contentType("text/csv")
+                        .content("title,author,publication_year\nA,B,2000\nC,D,x\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.rejectReasons['Invalid publication year']").value(1))
+                .andExpect(jsonPath("$.sampleRejections[0].lineNumber").value(3));
+    }
+
+    @Test
+    void importBooks_UnsupportedContentType_ReturnsUnsupportedMediaType() throws Exception {
+        perform(post("/api/v1/book/import")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<books/>"))
+                .andExpect(status().isUnsupportedMediaType());
     }
 
     @Test
@@ -97,7 +391,7 @@ public class BookControllerTest {
         when(bookService.createNewBook(any(BookRequest.class))).thenReturn(bookDto);
 
         // When & Then
-        mockMvc.perform(post("/api/v1/book/new")
+        perform(post("/api/v1/book/new")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(bookRequest)))
                 .andExpect(status().isCreated())
@@ -117,7 +411,7 @@ public class BookControllerTest {
                 .thenThrow(new ConstraintViolationException("Validation failed", Set.of()));
 
         // When & Then
-        mockMvc.perform(post("/api/v1/book/new")
+        perform(post("/api/v1/book/new")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
@@ -131,7 +425,7 @@ public class BookControllerTest {
         when(bookService.updateBookInfo(eq(1L), any(BookRequest.class))).thenReturn(bookDto);
 
         // When & Then
-        mockMvc.perform(put("/api/v1/book/update/{id}", 1L)
+        perform(put("/api/v1/book/update/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(bookRequest)))
                 .andExpect(status().isOk())
@@ -150,7 +444,7 @@ public class BookControllerTest {
                 .thenThrow(new BookNotFoundException("Book not found for id: 999"));
 
         // When & Then
-        mockMvc.perform(put("/api/v1/book/update/{id}", 999L)
+        perform(put("/api/v1/book/update/{id}", 999L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(bookRequest)))
                 .andExpect(status().isNotFound())
@@ -167,7 +461,7 @@ public class BookControllerTest {
                 .thenThrow(new ConstraintViolationException("Validation failed", Set.of()));
 
         // When & Then
-        mockMvc.perform(put("/api/v1/book/update/{id}", 1L)
+        perform(put("/api/v1/book/update/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
@@ -181,7 +475,7 @@ public class BookControllerTest {
         when(bookService.deleteBookById(1L)).thenReturn(true);
 
         // When & Then
-        mockMvc.perform(delete("/api/v1/book/delete/{id}", 1L)
+        perform(delete("/api/v1/book/delete/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
 
@@ -195,10 +489,194 @@ public class BookControllerTest {
                 .thenThrow(new ConstraintViolationException("Validation failed", Set.of()));
 
         // When & Then
-        mockMvc.perform(delete("/api/v1/book/delete/{id}", -1L)
+        perform(delete("/api/v1/book/delete/{id}", -1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
 
         verify(bookService).deleteBookById(-1L);
     }
+
+    @Test
+    void newBooks_ValidRequests_ReturnsCreated() throws Exception {
+        // Given
+        BookDto secondDto = new BookDto(2L, "Second Book", "Second Author", 2023);
+        when(bookService.createNewBooks(any())).thenReturn(List.of(bookDto, secondDto));
+
+        // When & Then
+        perform(post("/api/v1/book/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(bookRequest, bookRequest))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[1].id").value(2L))
+                .andExpect(jsonPath("$[1].title").value("Second Book"));
+
+        verify(bookService).createNewBooks(any());
+    }
+
+    @Test
+    void getBook_AcceptCbor_ReturnsCbor() throws Exception {
+        // Given
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(bookDto);
+
+        // When
+        MvcResult result = perform(get("/api/v1/book/{id}", 1L)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        // Then
+        assertEquals(bookDto, new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), BookDto.class));
+    }
+
+    @Test
+    void getBook_AcceptCbor_TagsRepresentationAndVariesByAccept() throws Exception {
+        // Given
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 3L));
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void getBook_IfNoneMatchOtherEncoding_ReturnsBook() throws Exception {
+        // Given
+        when(bookService.getBookVersion(1L)).thenReturn(3L);
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 3L));
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-smile\""));
+    }
+
+    @Test
+    void getBook_Projection_TagsFieldSet() throws Exception {
+        // Given
+        Set<BookField> fields = BookField.parse("title");
+        when(bookService.getBookVersion(1L)).thenReturn(3L);
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L)
+                        .param("fields", "title")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3-f13\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-f13\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+        verify(bookService, never()).getBookById(1L, fields);
+    }
+
+    @Test
+    void updateBook_IfMatchCborETag_PassesVersion() throws Exception {
+        // Given
+        when(bookService.updateBookInfo(eq(1L), any(BookRequest.class), eq(3L)))
+                .thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 4L));
+
+        // When & Then
+        perform(put("/api/v1/book/update/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void getBook_NoAcceptHeader_DefaultsToJson() throws Exception {
+        // Given
+        when(bookService.getBookById(1L, BookField.ALL)).thenReturn(bookDto);
+
+        // When & Then
+        perform(get("/api/v1/book/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void newBooks_SmileBody_ReturnsSmile() throws Exception {
+        // Given
+        SmileMapper smileMapper = new SmileMapper();
+        BookDto secondDto = new BookDto(2L, "Second Book", "Second Author", 2023);
+        when(bookService.createNewBooks(List.of(bookRequest, bookRequest))).thenReturn(List.of(bookDto, secondDto));
+
+        // When
+        MvcResult result = perform(post("/api/v1/book/batch")
+                        .contentType("application/x-jackson-smile")
+                        .accept("application/x-jackson-smile")
+                        .content(smileMapper.writeValueAsBytes(List.of(bookRequest, bookRequest))))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        // Then
+        BookDto[] created = smileMapper.readValue(result.getResponse().getContentAsByteArray(), BookDto[].class);
+        assertEquals(List.of(bookDto, secondDto), List.of(created));
+    }
+
+    @Test
+    void newBooks_InvalidItem_ReturnsBadRequestWithItemIndex() throws Exception {
+        // Given
+        BookRequest invalidRequest = new BookRequest("", "Author", 2020);
+        Path path = mock(Path.class);
+        when(path.toString()).thenReturn("createNewBooks.bookRequests[1].title");
+        ConstraintViolation<?> violation = mock(ConstraintViolation.class);
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("Book request: title is null or empty");
+        when(bookService.createNewBooks(any()))
+                .thenThrow(new ConstraintViolationException("Validation failed", Set.of(violation)));
+
+        // When & Then
+        perform(post("/api/v1/book/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(bookRequest, invalidRequest))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['bookRequests[1].title']").value("Book request: title is null or empty"));
+    }
+
+    @Test
+    void getBook_ExecutorSaturated_ReturnsServiceUnavailable() throws Exception {
+        // Given: one request holds the single JDBC thread and a second fills the queue
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.getBookById(1L, BookField.ALL)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return bookDto;
+        });
+
+        MvcResult running = mockMvc.perform(get("/api/v1/book/{id}", 1L)).andReturn();
+        started.await(5, TimeUnit.SECONDS);
+        MvcResult queued = mockMvc.perform(get("/api/v1/book/{id}", 1L)).andReturn();
+
+        try {
+            // When & Then
+            mockMvc.perform(get("/api/v1/book/{id}", 1L))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            release.countDown();
+        }
+
+        mockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(queued)).andExpect(status().isOk());
+    }
+
+    //Database-bound endpoints complete asynchronously; dispatch the result so the assertions see the response
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+
+        ResultActions resultActions = mockMvc.perform(requestBuilder);
+        MvcResult mvcResult = resultActions.andReturn();
+        if (mvcResult.getRequest().isAsyncStarted()) {
+            return mockMvc.perform(asyncDispatch(mvcResult));
+        }
+
+        return resultActions;
+    }
 }
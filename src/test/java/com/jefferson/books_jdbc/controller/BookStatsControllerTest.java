@@ -0,0 +1,64 @@
+package com.jefferson.books_jdbc.controller;
+
+import com.jefferson.books_jdbc.dto.BookStatsSummary;
+import com.jefferson.books_jdbc.dto.YearBookCount;
+import com.jefferson.books_jdbc.stats.BookStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(BookStatsController.class)
+public class BookStatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private BookStatistics bookStatistics;
+
+    @Test
+    void getSummary_ReturnsTotals() throws Exception {
+        when(bookStatistics.summary()).thenReturn(new BookStatsSummary(3, 2, 3, true));
+
+        mockMvc.perform(get("/api/v1/book/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalBooks").value(3))
+                .andExpect(jsonPath("$.authors").value(2))
+                .andExpect(jsonPath("$.ready").value(true));
+    }
+
+    @Test
+    void getAuthorCount_ReturnsCount() throws Exception {
+        when(bookStatistics.countByAuthor("Ernest Hemingway")).thenReturn(2L);
+
+        mockMvc.perform(get("/api/v1/book/stats/authors/{author}", "Ernest Hemingway"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.author").value("Ernest Hemingway"))
+                .andExpect(jsonPath("$.books").value(2));
+    }
+
+    @Test
+    void getYearCounts_ReturnsCountsInYearOrder() throws Exception {
+        when(bookStatistics.countsByYear()).thenReturn(List.of(new YearBookCount(1929, 1), new YearBookCount(1952, 2)));
+
+        mockMvc.perform(get("/api/v1/book/stats/years"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].publicationYear").value(1929))
+                .andExpect(jsonPath("$[1].books").value(2));
+    }
+
+    @Test
+    void getYearCount_InvalidYear_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/book/stats/years/{year}", "nineteen"))
+                .andExpect(status().isBadRequest());
+    }
+}
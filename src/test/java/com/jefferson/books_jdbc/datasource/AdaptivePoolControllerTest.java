@@ -0,0 +1,124 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptivePoolControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HikariDataSource pool;
+    private AdaptivePoolController controller;
+
+    @BeforeEach
+    void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:adaptive-pool;DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+        pool.setPoolName("adaptive-test");
+        pool.setMaximumPoolSize(2);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        // Sampled by hand; the scheduled interval never elapses during the test
+        controller = new AdaptivePoolController(pool, 2, 8, Duration.ofHours(1), Duration.ofMillis(5), 0.5, 2, 3, 0, 0.5);
+        controller.bindTo(meterRegistry);
+        controller.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.shutdown();
+        pool.close();
+    }
+
+    @Test
+    void sample_CallersWaiting_GrowsPool() throws Exception {
+        ExecutorService waiters = Executors.newFixedThreadPool(2);
+        List<Connection> held = new ArrayList<>();
+        try {
+            held.add(pool.getConnection());
+            held.add(pool.getConnection());
+            Future<Connection> waiting = waiters.submit(() -> pool.getConnection());
+            while (pool.getHikariPoolMXBean().getThreadsAwaitingConnection() == 0) {
+                Thread.sleep(5);
+            }
+
+            controller.sample();
+            controller.sample();
+
+            assertEquals(3, controller.poolSize());
+            // The grown pool hands the waiting caller a new connection
+            held.add(waiting.get());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+            waiters.shutdownNow();
+        }
+
+        assertEquals(3, meterRegistry.get("books.datasource.adaptive.size").gauge().value());
+        assertEquals(1, meterRegistry.get("books.datasource.adaptive.decisions").tag("action", "grow")
+                .functionCounter().count());
+    }
+
+    @Test
+    void sample_CallersQueuedOnGuard_GrowsPoolAndGuard() throws Exception {
+        ConnectionLimitingDataSource guarded = new ConnectionLimitingDataSource(pool, 2, Duration.ofSeconds(5));
+        AdaptivePoolController guardedController = new AdaptivePoolController(guarded, 2, 8, Duration.ofHours(1),
+                Duration.ofMillis(5), 0.5, 2, 3, 0, 0.5);
+        guardedController.bindTo(new SimpleMeterRegistry());
+        guardedController.start();
+
+        ExecutorService waiters = Executors.newFixedThreadPool(1);
+        List<Connection> held = new ArrayList<>();
+        try {
+            held.add(guarded.getConnection());
+            held.add(guarded.getConnection());
+            Future<Connection> waiting = waiters.submit(() -> guarded.getConnection());
+            while (guarded.queuedCallers() == 0) {
+                Thread.sleep(5);
+            }
+            // The pool itself sees nobody waiting
+            assertEquals(0, pool.getHikariPoolMXBean().getThreadsAwaitingConnection());
+
+            guardedController.sample();
+            guardedController.sample();
+
+            assertEquals(3, guardedController.poolSize());
+            assertEquals(3, guarded.limit());
+            held.add(waiting.get());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+            waiters.shutdownNow();
+            guardedController.shutdown();
+        }
+    }
+
+    @Test
+    void sample_IdlePool_Shrinks() throws Exception {
+        // Hikari starts the pool on the first connection
+        pool.getConnection().close();
+        pool.getHikariConfigMXBean().setMaximumPoolSize(8);
+
+        for (int i = 0; i < 3; i++) {
+            controller.sample();
+        }
+
+        assertEquals(4, controller.poolSize());
+    }
+}
@@ -0,0 +1,29 @@
+package com.jefferson.books_jdbc.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:guard-test")
+@ActiveProfiles("virtual-threads")
+public class ConnectionGuardConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void virtualThreadsProfile_GuardsPoolWithOnePermitPerConnection() {
+        assertInstanceOf(ConnectionLimitingDataSource.class, dataSource);
+        assertEquals(20, ((ConnectionLimitingDataSource) dataSource).availablePermits());
+        assertEquals("true", environment.getProperty("spring.threads.virtual.enabled"));
+    }
+}
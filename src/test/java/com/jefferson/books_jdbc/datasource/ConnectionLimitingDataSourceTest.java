@@ -0,0 +1,56 @@
+package com.jefferson.books_jdbc.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionLimitingDataSourceTest {
+
+    private final DataSource target = new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:guard", "sa", "");
+
+    @Test
+    void getConnection_PermitsExhausted_TimesOut() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+    }
+
+    @Test
+    void close_ReleasesPermitOnlyOnce() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(50));
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.availablePermits());
+
+        connection.close();
+        connection.close();
+
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void resize_Shrink_TakesEffectAsHoldersClose() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(50));
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        dataSource.resize(1);
+        first.close();
+
+        assertEquals(1, dataSource.limit());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        second.close();
+        dataSource.resize(3);
+
+        assertEquals(3, dataSource.availablePermits());
+    }
+}
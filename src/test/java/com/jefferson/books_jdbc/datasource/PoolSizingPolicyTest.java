@@ -0,0 +1,101 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.jefferson.books_jdbc.datasource.PoolSizingPolicy.Action;
+import com.jefferson.books_jdbc.datasource.PoolSizingPolicy.Decision;
+import com.jefferson.books_jdbc.datasource.PoolSizingPolicy.Sample;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoolSizingPolicyTest {
+
+    // min 4, max 32, grow past 5 ms waits after 2 samples, shrink below 50% use after 3 samples, 2 samples cooldown
+    private final PoolSizingPolicy policy = new PoolSizingPolicy(4, 32, 5, 0.5, 2, 3, 2, 0.5);
+
+    private static Sample waiting(int size) {
+        return new Sample(size, size, 10, 20, 1);
+    }
+
+    private static Sample idle(int size) {
+        return new Sample(size, 1, 0, 0, 1);
+    }
+
+    @Test
+    void next_SingleWaitingSample_Holds() {
+        assertEquals(new Decision(Action.HOLD, 8), policy.next(waiting(8)));
+    }
+
+    @Test
+    void next_SustainedWaiting_GrowsByHalf() {
+        policy.next(waiting(8));
+
+        assertEquals(new Decision(Action.GROW, 12), policy.next(waiting(8)));
+    }
+
+    @Test
+    void next_AfterChange_HoldsForCooldown() {
+        policy.next(waiting(8));
+        policy.next(waiting(8));
+
+        assertEquals(Action.HOLD, policy.next(waiting(12)).action());
+        assertEquals(Action.HOLD, policy.next(waiting(12)).action());
+        assertEquals(new Decision(Action.GROW, 18), policy.next(waiting(12)));
+    }
+
+    @Test
+    void next_NeverGrowsPastMaxSize() {
+        policy.next(waiting(30));
+
+        assertEquals(new Decision(Action.GROW, 32), policy.next(waiting(30)));
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(Action.GROW, policy.next(waiting(32)).action());
+        }
+    }
+
+    @Test
+    void next_SustainedIdle_ShrinksByHalfOfIdleConnections() {
+        policy.next(idle(21));
+        policy.next(idle(21));
+
+        assertEquals(new Decision(Action.SHRINK, 11), policy.next(idle(21)));
+    }
+
+    @Test
+    void next_LoadBetweenThresholds_LeavesSizeAlone() {
+        // Busy enough not to shrink, not waiting enough to grow
+        Sample steady = new Sample(16, 12, 0, 1, 1);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(new Decision(Action.HOLD, 16), policy.next(steady));
+        }
+    }
+
+    @Test
+    void next_AlternatingSamples_DoesNotOscillate() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Action.HOLD, policy.next(i % 2 == 0 ? waiting(16) : idle(16)).action());
+        }
+    }
+
+    @Test
+    void next_QueryLatencyRoseAfterGrowth_BlocksFurtherGrowth() {
+        policy.next(waiting(8));
+        policy.next(waiting(8));
+        policy.next(waiting(12));
+        policy.next(waiting(12));
+
+        Sample slowerDatabase = new Sample(12, 12, 10, 20, 3);
+
+        assertEquals(new Decision(Action.BLOCKED, 12), policy.next(slowerDatabase));
+    }
+
+    @Test
+    void next_SizeOutsideBounds_IsClamped() {
+        assertEquals(new Decision(Action.GROW, 4), policy.next(idle(2)));
+    }
+
+    @Test
+    void constructor_InvalidBounds_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new PoolSizingPolicy(10, 5, 5, 0.5, 2, 3, 2, 0.5));
+    }
+}
@@ -0,0 +1,138 @@
+package com.jefferson.books_jdbc.datasource;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.event.BooksFlushedEvent;
+import com.jefferson.books_jdbc.repository.BookFilter;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Two in-memory H2 databases stand in for the primary and the replica; nothing replicates between them,
+//so which copy a read returns shows where it was routed
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "books.datasource.replica.enabled=true",
+        "books.datasource.replica.sticky-window=300ms",
+        "books.datasource.replica.hikari.jdbc-url=jdbc:h2:mem:routing-replica",
+        "books.datasource.replica.hikari.username=sa",
+        "books.search.enabled=false",
+        "books.cache.enabled=false",
+        "books.bloom.enabled=false"
+})
+public class ReadReplicaRoutingTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replicaDataSource);
+        replica.update("INSERT INTO books (title, author, publication_year) VALUES ('Replica copy', 'Author', 2000)");
+
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        primary.update("DELETE FROM books");
+        primary.update("ALTER TABLE books ALTER COLUMN id RESTART WITH 1");
+        primary.update("INSERT INTO books (title, author, publication_year) VALUES ('Primary copy', 'Author', 2000)");
+    }
+
+    @Test
+    void reads_GoToReplica() throws InterruptedException {
+        Thread.sleep(350);
+
+        assertEquals("Replica copy", bookRepository.getBookById(1L).orElseThrow().getTitle());
+        assertEquals(1, bookRepository.getBooksAfter(0L, 10, BookFilter.NONE).size());
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, routingDataSource.currentRoute());
+    }
+
+    @Test
+    void writes_GoToPrimary() {
+        BookDto created = bookService.createNewBook(new BookRequest("Written", "Author", 2001));
+
+        Long onPrimary = new JdbcTemplate(primaryDataSource)
+                .queryForObject("SELECT COUNT(*) FROM books WHERE id = ?", Long.class, created.id());
+        Long onReplica = new JdbcTemplate(replicaDataSource)
+                .queryForObject("SELECT COUNT(*) FROM books WHERE title = 'Written'", Long.class);
+
+        assertEquals(1L, onPrimary);
+        assertEquals(0L, onReplica);
+    }
+
+    @Test
+    void readsRightAfterWrite_StickToPrimaryUntilWindowPasses() throws InterruptedException {
+        bookService.updateBookInfo(1L, new BookRequest("Primary update", "Author", 2000));
+
+        assertEquals("Primary update", bookService.getBookById(1L).title());
+        assertEquals("Primary update", bookService.getBooksByIds(List.of(1L)).books().getFirst().title());
+
+        Thread.sleep(350);
+
+        assertEquals("Replica copy", bookService.getBookById(1L).title());
+    }
+
+    @Test
+    void writeToAnotherBook_LeavesReadsOnReplica() throws InterruptedException {
+        Thread.sleep(350);
+
+        bookService.createNewBook(new BookRequest("Other", "Author", 2001));
+
+        assertEquals("Replica copy", bookService.getBookById(1L).title());
+        assertEquals(1, bookRepository.getBooksAfter(0L, 10, BookFilter.NONE).size());
+    }
+
+    @Test
+    void flushedBooks_StickToPrimary() throws InterruptedException {
+        Thread.sleep(350);
+
+        routingDataSource.onBooksFlushed(new BooksFlushedEvent(List.of(1L)));
+
+        assertEquals("Primary copy", bookService.getBookById(1L).title());
+    }
+
+    @Test
+    void eachPool_HasItsOwnMetricsAndHealth() {
+        bookRepository.getBookById(1L);
+
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "books-primary").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "books-replica").gauge());
+        assertTrue(meterRegistry.get("books.datasource.routed").tag("pool", "primary").counter().count() > 0);
+        assertEquals(Status.UP, healthEndpoint.healthForPath("db").getStatus());
+    }
+}
@@ -0,0 +1,61 @@
+package com.jefferson.books_jdbc.exception;
+
+import com.jefferson.books_jdbc.dto.ErrorResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlobalExceptionHandlerTest {
+
+    @Test
+    void bookNotFoundException_HasNoStackTrace() {
+        assertEquals(0, new BookNotFoundException("Book not found for id: 1").getStackTrace().length);
+        assertEquals(0, new BookVersionConflictException(1L, 2L).getStackTrace().length);
+    }
+
+    @Test
+    void handleNotFound_CountsEveryErrorInMetrics() {
+        GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler(Duration.ofHours(1), 2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        exceptionHandler.bindTo(meterRegistry);
+
+        ResponseEntity<ErrorResponse> response = null;
+        for (long i = 0; i < 5; i++) {
+            response = exceptionHandler.handleProductNotFoundException(new BookNotFoundException(i));
+        }
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(new ErrorResponse("Book not found for id: 4"), response.getBody());
+        assertEquals(5, exceptionHandler.count(GlobalExceptionHandler.ErrorType.NOT_FOUND));
+        assertEquals(5, meterRegistry.get("books.errors").tag("type", "not_found").functionCounter().count());
+        assertEquals(0, meterRegistry.get("books.errors").tag("type", "validation").functionCounter().count());
+    }
+
+    @Test
+    void tryLog_OverLimit_SuppressesAndReportsSkippedCount() {
+        ErrorLogLimiter limiter = new ErrorLogLimiter(Duration.ofHours(1), 2);
+
+        assertEquals(0, limiter.tryLog());
+        assertEquals(0, limiter.tryLog());
+        assertEquals(-1, limiter.tryLog());
+        assertEquals(-1, limiter.tryLog());
+    }
+
+    @Test
+    void tryLog_NextWindow_ReportsSuppressedSinceLastLine() throws InterruptedException {
+        ErrorLogLimiter limiter = new ErrorLogLimiter(Duration.ofMillis(20), 1);
+
+        assertEquals(0, limiter.tryLog());
+        assertEquals(-1, limiter.tryLog());
+        assertEquals(-1, limiter.tryLog());
+
+        Thread.sleep(30);
+
+        assertEquals(2, limiter.tryLog());
+    }
+}
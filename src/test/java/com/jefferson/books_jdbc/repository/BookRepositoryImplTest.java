@@ -1,20 +1,34 @@
 package com.jefferson.books_jdbc.repository;
 
 import com.jefferson.books_jdbc.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJdbcTest
-@Import(BookRepositoryImpl.class)
+@Import({BookRepositoryImpl.class, BookRepositoryMetrics.class, SimpleMeterRegistry.class})
 @Sql(scripts = "/test-data.sql")
 public class BookRepositoryImplTest {
 
@@ -24,6 +38,9 @@ public class BookRepositoryImplTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void getBookById_ExistingId_ReturnsBook() {
 
@@ -43,6 +60,17 @@ public class BookRepositoryImplTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    void schema_RunAgainstExistingTable_KeepsRows() {
+
+        long before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(jdbcTemplate.getDataSource());
+
+        assertEquals(before, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class));
+        assertTrue(bookRepository.getBookById(1L).isPresent());
+    }
+
     @Test
     void getBookById_NullId_ReturnsEmpty() {
 
@@ -59,6 +87,181 @@ public class BookRepositoryImplTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    void getBookById_RecordsTimerPerOutcome() {
+
+        long found = statementCount("get_by_id", "found");
+        long notFound = statementCount("get_by_id", "not_found");
+
+        bookRepository.getBookById(1L);
+        bookRepository.getBookById(999L);
+
+        assertEquals(found + 1, statementCount("get_by_id", "found"));
+        assertEquals(notFound + 1, statementCount("get_by_id", "not_found"));
+    }
+
+    @Test
+    void metrics_RegistersOnlyRecordedTimers() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BookRepositoryMetrics metrics = new BookRepositoryMetrics(registry);
+
+        assertTrue(registry.find("books.repository.statement").timers().isEmpty());
+
+        metrics.time(BookRepositoryMetrics.Operation.CREATE, () -> 1, created -> BookRepositoryMetrics.Outcome.SUCCESS);
+        metrics.time(BookRepositoryMetrics.Operation.CREATE, () -> 2, created -> BookRepositoryMetrics.Outcome.SUCCESS);
+
+        assertEquals(1, registry.find("books.repository.statement").timers().size());
+        assertEquals(2, registry.get("books.repository.statement").tag("operation", "create").timer().count());
+    }
+
+    @Test
+    void createNewBook_WithNullTitle_RecordsInvalid() {
+
+        long conflicts = statementCount("create", "conflict");
+        long invalid = statementCount("create", "invalid");
+
+        assertThrows(DataAccessException.class,
+                () -> bookRepository.createNewBook(new Book(null, null, "Author", 2000)));
+
+        assertEquals(invalid + 1, statementCount("create", "invalid"));
+        assertEquals(conflicts, statementCount("create", "conflict"));
+    }
+
+    @Test
+    void createNewBook_WithTakenId_RecordsConflict() {
+
+        long conflicts = statementCount("create", "conflict");
+
+        assertThrows(DuplicateKeyException.class,
+                () -> bookRepository.createNewBook(new Book(1L, "Duplicate", "Author", 2000)));
+
+        assertEquals(conflicts + 1, statementCount("create", "conflict"));
+    }
+
+    @Test
+    void getBooksByIds_RecordsRowsReturned() {
+
+        double rows = meterRegistry.get("books.repository.rows").tag("operation", "get_by_ids").summary().totalAmount();
+
+        bookRepository.getBooksByIds(List.of(1L, 2L, 999L));
+
+        assertEquals(rows + 2.0,
+                meterRegistry.get("books.repository.rows").tag("operation", "get_by_ids").summary().totalAmount());
+    }
+
+    @Test
+    void getBooksByIds_MixedIds_ReturnsOnlyExistingBooks() {
+
+        List<Book> result = bookRepository.getBooksByIds(List.of(2L, 999L, 1L, 2L));
+
+        assertEquals(2, result.size());
+        assertEquals(Set.of("Effective Java", "Clean Code"),
+                result.stream().map(Book::getTitle).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void getBooksByIds_MoreIdsThanOneChunk_ReturnsAllBooks() {
+
+        List<Book> created = bookRepository.createBooks(newBooks("Shelf", 2_500));
+
+        List<Book> result = bookRepository.getBooksByIds(created.stream().map(Book::getId).toList());
+
+        assertEquals(2_500, result.size());
+    }
+
+    @Test
+    void getBooksByIds_EmptyOrInvalidIds_ReturnsEmpty() {
+
+        assertTrue(bookRepository.getBooksByIds(List.of()).isEmpty());
+        assertTrue(bookRepository.getBooksByIds(List.of(-1L, 0L)).isEmpty());
+    }
+
+    @Test
+    void getBookById_Fields_ReadsOnlyRequestedColumns() {
+
+        Optional<Book> result = bookRepository.getBookById(1L, Set.of(BookField.TITLE));
+
+        assertTrue(result.isPresent());
+        assertEquals(1L, result.get().getId());
+        assertEquals("Effective Java", result.get().getTitle());
+        assertNull(result.get().getAuthor());
+        assertNull(result.get().getPublicationYear());
+    }
+
+    @Test
+    void getBooksByIds_Fields_ReadsOnlyRequestedColumns() {
+
+        List<Book> result = bookRepository.getBooksByIds(List.of(1L, 2L), Set.of(BookField.ID, BookField.PUBLICATION_YEAR));
+
+        assertEquals(Set.of(2018, 2008), result.stream().map(Book::getPublicationYear).collect(Collectors.toSet()));
+        assertTrue(result.stream().allMatch(book -> book.getTitle() == null && book.getAuthor() == null));
+    }
+
+    @Test
+    void getBooksAfter_FieldsAndFilter_KeepsIdForCursor() {
+
+        List<Book> result = bookRepository.getBooksAfter(null, 10, new BookFilter("Robert Martin", null),
+                Set.of(BookField.AUTHOR));
+
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals("Robert Martin", result.get(0).getAuthor());
+        assertNull(result.get(0).getTitle());
+    }
+
+    @Test
+    void getBooksAfter_Cursor_ReturnsNextBooksInIdOrder() {
+
+        List<Book> firstPage = bookRepository.getBooksAfter(null, 1, BookFilter.NONE);
+        List<Book> secondPage = bookRepository.getBooksAfter(firstPage.get(0).getId(), 10, BookFilter.NONE);
+
+        assertEquals(1, firstPage.size());
+        assertEquals("Effective Java", firstPage.get(0).getTitle());
+        assertEquals(1, secondPage.size());
+        assertEquals("Clean Code", secondPage.get(0).getTitle());
+    }
+
+    @Test
+    void getBooksAfter_AuthorAndYearFilter_ReturnsMatchingBooks() {
+
+        bookRepository.createBooks(List.of(
+                new Book(null, "Java Puzzlers", "Joshua Bloch", 2005),
+                new Book(null, "Java Concurrency in Practice", "Joshua Bloch", 2006)));
+
+        List<Book> byAuthor = bookRepository.getBooksAfter(null, 10, new BookFilter("Joshua Bloch", null));
+        List<Book> byAuthorAndYear = bookRepository.getBooksAfter(null, 10, new BookFilter("Joshua Bloch", 2005));
+        List<Book> byYear = bookRepository.getBooksAfter(null, 10, new BookFilter(null, 2008));
+
+        assertEquals(3, byAuthor.size());
+        assertEquals(List.of("Java Puzzlers"), byAuthorAndYear.stream().map(Book::getTitle).toList());
+        assertEquals(List.of("Clean Code"), byYear.stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void getBooksAfter_AuthorFilter_UsesAuthorIndex() {
+
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT * FROM books WHERE id > 0 AND author = 'Joshua Bloch' ORDER BY id LIMIT 10",
+                String.class);
+
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains("IDX_BOOKS_AUTHOR_ID"), plan);
+    }
+
+    @Test
+    void streamBooks_AllRows_VisitsEveryBookInIdOrder() {
+
+        bookRepository.createBooks(newBooks("Streamed", 3_000));
+        List<Long> visitedIds = new ArrayList<>();
+
+        long count = bookRepository.streamBooks(book -> visitedIds.add(book.getId()));
+
+        assertEquals(3_002L, count);
+        assertEquals(3_002, visitedIds.size());
+        assertEquals(visitedIds.stream().sorted().toList(), visitedIds);
+    }
+
     @Test
     void createNewBook_ValidBook_ReturnsBookWithGeneratedId() {
 
@@ -133,6 +336,96 @@ public class BookRepositoryImplTest {
         assertEquals(2024, dbBook.getPublicationYear());
     }
 
+    @Test
+    void updateBookInfo_EveryUpdate_BumpsVersion() {
+
+        Book first = bookRepository.updateBookInfo(new Book(1L, "Effective Java", "Joshua Bloch", 2018)).orElseThrow();
+        Book second = bookRepository.updateBookInfo(new Book(1L, "Effective Java", "Joshua Bloch", 2018)).orElseThrow();
+
+        assertEquals(1L, first.getVersion());
+        assertEquals(2L, second.getVersion());
+        assertEquals(Optional.of(2L), bookRepository.getVersionById(1L));
+    }
+
+    @Test
+    void updateBookInfo_ExpectedVersionMatches_Updates() {
+
+        Optional<Book> result = bookRepository.updateBookInfo(new Book(1L, "Updated Title", "Joshua Bloch", 2018, 0L));
+
+        assertTrue(result.isPresent());
+        assertEquals(1L, result.get().getVersion());
+    }
+
+    @Test
+    void updateBookInfo_StaleVersion_ThrowsOptimisticLockingFailure() {
+
+        bookRepository.updateBookInfo(new Book(1L, "Updated Title", "Joshua Bloch", 2018));
+
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                bookRepository.updateBookInfo(new Book(1L, "Stale Title", "Joshua Bloch", 2018, 0L)));
+        assertEquals("Updated Title", bookRepository.getBookById(1L).orElseThrow().getTitle());
+    }
+
+    @Test
+    void updateBookInfo_ExpectedVersionForMissingBook_ReturnsEmpty() {
+
+        assertTrue(bookRepository.updateBookInfo(new Book(999L, "Title", "Author", 2018, 0L)).isEmpty());
+    }
+
+    @Test
+    void getVersionById_NewBook_StartsAtZero() {
+
+        Book created = bookRepository.createNewBook(new Book(null, "New", "Author", 2020));
+
+        assertEquals(0L, created.getVersion());
+        assertEquals(Optional.of(0L), bookRepository.getVersionById(created.getId()));
+        assertTrue(bookRepository.getVersionById(999L).isEmpty());
+    }
+
+    @Test
+    void updateBookFields_OnlyTitle_LeavesOtherColumnsUntouched() {
+
+        // The other properties carry values that must not reach the database
+        Book patch = new Book(1L, "Effective Java 3rd Edition", "Someone Else", 1999);
+
+        Book result = bookRepository.updateBookFields(patch, Set.of(BookField.TITLE)).orElseThrow();
+
+        Book stored = bookRepository.getBookById(1L).orElseThrow();
+        assertEquals("Effective Java 3rd Edition", stored.getTitle());
+        assertEquals("Joshua Bloch", stored.getAuthor());
+        assertEquals(2018, stored.getPublicationYear());
+        assertEquals(1L, result.getVersion());
+    }
+
+    @Test
+    void updateBookFields_StaleVersion_RecordsConflict() {
+
+        long conflicts = statementCount("update", "conflict");
+        long notFound = statementCount("update", "not_found");
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> bookRepository.updateBookFields(new Book(1L, "Stale", null, null, 7L), Set.of(BookField.TITLE)));
+
+        assertEquals(conflicts + 1, statementCount("update", "conflict"));
+        assertEquals(notFound, statementCount("update", "not_found"));
+    }
+
+    @Test
+    void updateBookFields_StaleVersion_ThrowsOptimisticLockingFailure() {
+
+        bookRepository.updateBookFields(new Book(1L, null, "Josh Bloch", null), Set.of(BookField.AUTHOR));
+
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                bookRepository.updateBookFields(new Book(1L, null, null, 2019, 0L), Set.of(BookField.PUBLICATION_YEAR)));
+    }
+
+    @Test
+    void updateBookFields_NoWritableField_ThrowsIllegalArgument() {
+
+        assertThrows(IllegalArgumentException.class, () ->
+                bookRepository.updateBookFields(new Book(1L, "Title", "Author", 2018), Set.of(BookField.ID)));
+    }
+
     @Test
     void updateBookInfo_NonExistingBook_ReturnsEmpty() {
 
@@ -183,4 +476,77 @@ public class BookRepositoryImplTest {
         );
         assertEquals(2L, count);
     }
+
+    @Test
+    void createBooks_ValidBooks_ReturnsBooksWithGeneratedIds() {
+
+        List<Book> books = List.of(
+                new Book(null, "First", "Author One", 2001),
+                new Book(null, "Second", "Author Two", 2002),
+                new Book(null, "Third", "Author Three", null));
+
+        List<Book> result = bookRepository.createBooks(books);
+
+        assertEquals(3, result.size());
+        assertEquals(3L, result.stream().map(Book::getId).distinct().count());
+
+        for (Book book : result) {
+            Optional<Book> stored = bookRepository.getBookById(book.getId());
+            assertTrue(stored.isPresent());
+            assertEquals(book.getTitle(), stored.get().getTitle());
+            assertEquals(book.getPublicationYear(), stored.get().getPublicationYear());
+        }
+    }
+
+    @Test
+    void createBooks_MoreThanOneChunk_AssignsIdsInOrder() {
+
+        List<Book> books = newBooks("Chunked", 1_234);
+
+        List<Book> result = bookRepository.createBooks(books);
+
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i).getId() > result.get(i - 1).getId());
+        }
+        assertEquals("Chunked 1233", bookRepository.getBookById(result.get(1_233).getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void createBooks_EmptyList_ReturnsEmpty() {
+
+        assertTrue(bookRepository.createBooks(List.of()).isEmpty());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void createBooks_LaterChunkFails_RollsBackWholeBatch() {
+
+        // Given
+        List<Book> books = newBooks("Atomic", 1_234);
+        books.get(1_233).setPublicationYear(3000);
+        Integer before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class);
+
+        // When
+        assertThrows(DataIntegrityViolationException.class, () -> bookRepository.createBooks(books));
+
+        // Then
+        assertEquals(before, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class));
+    }
+
+    private long statementCount(String operation, String outcome) {
+        // Timers are registered on first use
+        Timer timer = meterRegistry.find("books.repository.statement")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static List<Book> newBooks(String title, int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(null, title + " " + i, "Author " + i, 2000 + i % 20));
+        }
+        return books;
+    }
 }
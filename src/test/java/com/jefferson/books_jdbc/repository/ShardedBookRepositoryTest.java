@@ -0,0 +1,192 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.model.Book;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedBookRepositoryTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<JdbcTemplate> templates = new ArrayList<>();
+    private ShardedBookRepository shardedRepository;
+
+    @BeforeEach
+    void setUp() {
+        BookRepositoryMetrics metrics = new BookRepositoryMetrics(new SimpleMeterRegistry());
+        List<BookRepository> shards = new ArrayList<>();
+
+        for (int i = 0; i < SHARDS; i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:shard-" + i + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            pool.setUsername("sa");
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql"),
+                    new ByteArrayResource(ShardIdGenerator.createSequenceSql(2).getBytes())).execute(pool);
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+            pools.add(pool);
+            templates.add(jdbcTemplate);
+            shards.add(ShardedBookRepository.transactional(new BookRepositoryImpl(jdbcTemplate, metrics, 500, 1000, 1000), pool));
+        }
+
+        // A block size of 2 makes the tests cross block boundaries
+        shardedRepository = new ShardedBookRepository(shards, new ShardIdGenerator(templates, 2), pools);
+    }
+
+    @AfterEach
+    void tearDown() {
+        templates.forEach(jdbcTemplate -> jdbcTemplate.execute("SHUTDOWN"));
+        shardedRepository.close();
+    }
+
+    @Test
+    void createNewBook_StoresBookOnTheShardItsIdMapsTo() {
+
+        for (int i = 0; i < 10; i++) {
+            Book book = shardedRepository.createNewBook(new Book(null, "Book " + i, "Author", 2000));
+
+            int shard = (int) (book.getId() % SHARDS);
+            assertEquals(1, rowsWithId(shard, book.getId()));
+            assertEquals(book.getTitle(), shardedRepository.getBookById(book.getId()).orElseThrow().getTitle());
+        }
+
+        for (JdbcTemplate jdbcTemplate : templates) {
+            assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class) > 0);
+        }
+    }
+
+    @Test
+    void createBooks_AssignsUniqueIdsAcrossShards() {
+
+        List<Book> created = shardedRepository.createBooks(newBooks(25));
+
+        assertEquals(25, created.stream().map(Book::getId).distinct().count());
+        assertEquals(25, totalRows());
+        assertEquals(25, shardedRepository.getBooksByIds(created.stream().map(Book::getId).toList()).size());
+    }
+
+    @Test
+    void createBooks_LaterChunkFailsOnShard_RollsBackThatShard() {
+
+        // Given: about 1000 books per shard, two chunks each, and the last one invalid
+        List<Book> books = newBooks(3_000);
+        books.getLast().setPublicationYear(3000);
+
+        // When
+        assertThrows(DataIntegrityViolationException.class, () -> shardedRepository.createBooks(books));
+
+        // Then: the shard holding the bad row kept none of its part
+        int failedShard = (int) (books.getLast().getId() % SHARDS);
+        assertEquals(0, templates.get(failedShard).queryForObject("SELECT COUNT(*) FROM books", Integer.class));
+    }
+
+    @Test
+    void nextId_BlockSizeRaisedOverExistingSequence_StillUnique() {
+
+        // Given: the sequences were created stepping by 2, and two instances now ask for blocks of 10
+        ShardIdGenerator first = new ShardIdGenerator(templates, 10);
+        ShardIdGenerator second = new ShardIdGenerator(templates, 10);
+
+        // When
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(first.nextId(0));
+            ids.add(second.nextId(0));
+        }
+
+        // Then
+        assertEquals(40, ids.size());
+    }
+
+    @Test
+    void getBooksAfter_MergesShardsInIdOrder() {
+
+        List<Long> ids = shardedRepository.createBooks(newBooks(20)).stream().map(Book::getId).sorted().toList();
+
+        List<Book> firstPage = shardedRepository.getBooksAfter(null, 7, BookFilter.NONE);
+        List<Book> secondPage = shardedRepository.getBooksAfter(firstPage.getLast().getId(), 7, BookFilter.NONE);
+
+        assertEquals(ids.subList(0, 7), firstPage.stream().map(Book::getId).toList());
+        assertEquals(ids.subList(7, 14), secondPage.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void getBooksAfter_AppliesFilterOnEveryShard() {
+
+        shardedRepository.createBooks(newBooks(12));
+
+        List<Book> books = shardedRepository.getBooksAfter(null, 100, new BookFilter("Author 1", null));
+
+        assertEquals(6, books.size());
+        assertTrue(books.stream().allMatch(book -> book.getAuthor().equals("Author 1")));
+    }
+
+    @Test
+    void updateAndDelete_RouteToOwningShard() {
+
+        Book book = shardedRepository.createNewBook(new Book(null, "Original", "Author", 2000));
+
+        Book updated = shardedRepository.updateBookFields(new Book(book.getId(), "Renamed", null, null),
+                Set.of(BookField.TITLE)).orElseThrow();
+        assertEquals("Renamed", updated.getTitle());
+        assertEquals(1L, shardedRepository.getVersionById(book.getId()).orElseThrow());
+
+        assertTrue(shardedRepository.deleteBookById(book.getId()));
+        assertTrue(shardedRepository.getBookById(book.getId()).isEmpty());
+        assertFalse(shardedRepository.deleteBookById(book.getId()));
+    }
+
+    @Test
+    void updateBooks_CountsRowsAcrossShards() {
+
+        List<Book> created = shardedRepository.createBooks(newBooks(9));
+        created.forEach(book -> book.setTitle("Batch renamed"));
+
+        assertEquals(9, shardedRepository.updateBooks(created, Set.of(BookField.TITLE)));
+        assertEquals(9, shardedRepository.getBooksByIds(created.stream().map(Book::getId).toList()).stream()
+                .filter(book -> book.getTitle().equals("Batch renamed")).count());
+    }
+
+    @Test
+    void streamBooks_VisitsEveryShard() {
+
+        shardedRepository.createBooks(newBooks(11));
+
+        List<Book> streamed = new ArrayList<>();
+        assertEquals(11, shardedRepository.streamBooks(streamed::add));
+        assertEquals(11, streamed.size());
+    }
+
+    private static List<Book> newBooks(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(null, "Book " + i, "Author " + (i % 2), 2000));
+        }
+        return books;
+    }
+
+    private int rowsWithId(int shard, long id) {
+        return templates.get(shard).queryForObject("SELECT COUNT(*) FROM books WHERE id = ?", Integer.class, id);
+    }
+
+    private int totalRows() {
+        return templates.stream().mapToInt(jdbcTemplate -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class)).sum();
+    }
+}
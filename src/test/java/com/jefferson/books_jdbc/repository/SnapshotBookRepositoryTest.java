@@ -0,0 +1,180 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.AopTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+@DataJdbcTest
+@Import({BookRepositoryImpl.class, BookRepositoryMetrics.class, SimpleMeterRegistry.class})
+@Sql(scripts = "/test-data.sql")
+public class SnapshotBookRepositoryTest {
+
+    @Autowired
+    private BookRepositoryImpl bookRepositoryImpl;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SnapshotBookRepository snapshotRepository;
+
+    @BeforeEach
+    void setUp() {
+        snapshotRepository = new SnapshotBookRepository(bookRepositoryImpl, new SimpleMeterRegistry(), 4, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotRepository.shutdown();
+    }
+
+    @Test
+    void getBookById_BeforeLoad_ReadsTable() {
+
+        assertFalse(snapshotRepository.isLoaded());
+        assertEquals("Effective Java", snapshotRepository.getBookById(1L).orElseThrow().getTitle());
+    }
+
+    @Test
+    void getBookById_AfterLoad_ServedWithoutDatabase() {
+
+        snapshotRepository.reload();
+        // Rows changed behind the snapshot's back prove reads no longer reach the table
+        jdbcTemplate.update("DELETE FROM books");
+
+        Book book = snapshotRepository.getBookById(1L).orElseThrow();
+        assertEquals("Effective Java", book.getTitle());
+        assertEquals("Joshua Bloch", book.getAuthor());
+        assertEquals(2018, book.getPublicationYear());
+        assertEquals(0L, snapshotRepository.getVersionById(2L).orElseThrow());
+        assertTrue(snapshotRepository.getBookById(99L).isEmpty());
+        assertEquals(2, snapshotRepository.getBooksByIds(List.of(2L, 1L, 99L)).size());
+    }
+
+    @Test
+    void getBookById_Fields_LeavesOtherColumnsNull() {
+
+        snapshotRepository.reload();
+
+        Book book = snapshotRepository.getBookById(1L, Set.of(BookField.ID, BookField.TITLE, BookField.VERSION)).orElseThrow();
+
+        assertEquals("Effective Java", book.getTitle());
+        assertNull(book.getAuthor());
+        assertNull(book.getPublicationYear());
+    }
+
+    @Test
+    void writes_AreVisibleWithoutReload() {
+
+        snapshotRepository.reload();
+
+        Book created = snapshotRepository.createNewBook(new Book(null, "Refactoring", "Martin Fowler", 2018));
+        snapshotRepository.updateBookFields(new Book(1L, "Effective Java 3rd Edition", null, null), Set.of(BookField.TITLE));
+        snapshotRepository.deleteBookById(2L);
+
+        assertEquals("Refactoring", snapshotRepository.getBookById(created.getId()).orElseThrow().getTitle());
+        Book updated = snapshotRepository.getBookById(1L).orElseThrow();
+        assertEquals("Effective Java 3rd Edition", updated.getTitle());
+        assertEquals("Joshua Bloch", updated.getAuthor());
+        assertEquals(1L, updated.getVersion());
+        assertTrue(snapshotRepository.getBookById(2L).isEmpty());
+    }
+
+    @Test
+    void updateBookInfo_OlderWriteLandsLast_KeepsNewerRow() {
+
+        // Given
+        BookRepositoryImpl delegate = spy(AopTestUtils.<BookRepositoryImpl>getUltimateTargetObject(bookRepositoryImpl));
+        SnapshotBookRepository repository = new SnapshotBookRepository(delegate, new SimpleMeterRegistry(), 100, Duration.ZERO);
+        repository.reload();
+        repository.updateBookInfo(new Book(1L, "First", "Joshua Bloch", 2018));
+        repository.updateBookInfo(new Book(1L, "Second", "Joshua Bloch", 2018));
+
+        // When: a writer that committed version 1 only records it now
+        doReturn(Optional.of(new Book(1L, "First", "Joshua Bloch", 2018, 1L))).when(delegate).updateBookInfo(any());
+        repository.updateBookInfo(new Book(1L, "First", "Joshua Bloch", 2018));
+
+        // Then
+        Book book = repository.getBookById(1L).orElseThrow();
+        assertEquals("Second", book.getTitle());
+        assertEquals(2L, book.getVersion());
+        repository.shutdown();
+    }
+
+    @Test
+    void writes_PastThreshold_CompactIntoSnapshot() {
+
+        snapshotRepository.reload();
+
+        List<Book> created = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            created.add(snapshotRepository.createNewBook(new Book(null, "Book " + i, "Author", 2000 + i)));
+        }
+
+        // The fourth write merged the overlay into the snapshot; the last two are still in the overlay
+        assertEquals(6, snapshotRepository.memoryReport().books());
+        assertEquals(2, snapshotRepository.overlaySize());
+        for (Book book : created) {
+            assertEquals(book.getTitle(), snapshotRepository.getBookById(book.getId()).orElseThrow().getTitle());
+        }
+    }
+
+    @Test
+    void getBooksAfter_MergesSnapshotAndOverlayInIdOrder() {
+
+        snapshotRepository.reload();
+        snapshotRepository.createNewBook(new Book(null, "Java Concurrency in Practice", "Joshua Bloch", 2006));
+        snapshotRepository.updateBookFields(new Book(2L, null, "Joshua Bloch", null), Set.of(BookField.AUTHOR));
+
+        List<Book> page = snapshotRepository.getBooksAfter(null, 10, new BookFilter("Joshua Bloch", null));
+        assertEquals(List.of(1L, 2L, 3L), page.stream().map(Book::getId).toList());
+
+        List<Book> afterFirst = snapshotRepository.getBooksAfter(1L, 1, BookFilter.NONE);
+        assertEquals(List.of(2L), afterFirst.stream().map(Book::getId).toList());
+
+        assertTrue(snapshotRepository.getBooksAfter(null, 10, new BookFilter("Nobody", null)).isEmpty());
+    }
+
+    @Test
+    void memoryReport_SmallerThanHashMapBaseline() {
+
+        snapshotRepository.reload();
+        for (int i = 0; i < 3; i++) {
+            snapshotRepository.createBooks(newBooks(100));
+        }
+        snapshotRepository.reload();
+
+        SnapshotMemoryReport report = snapshotRepository.memoryReport();
+
+        assertEquals(302, report.books());
+        assertEquals(12, report.authors());
+        assertTrue(report.snapshotBytesPerBook() < report.hashMapBytesPerBook(),
+                report.snapshotBytesPerBook() + " vs " + report.hashMapBytesPerBook());
+    }
+
+    private static List<Book> newBooks(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(null, "Title " + i, "Author " + (i % 10), 1950 + i % 70));
+        }
+        return books;
+    }
+}
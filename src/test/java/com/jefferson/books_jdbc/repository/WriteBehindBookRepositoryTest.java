@@ -0,0 +1,261 @@
+package com.jefferson.books_jdbc.repository;
+
+import com.jefferson.books_jdbc.event.BooksFlushedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.AopTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@DataJdbcTest
+@Import({BookRepositoryImpl.class, BookRepositoryMetrics.class, SimpleMeterRegistry.class})
+@Sql(scripts = "/test-data.sql")
+public class WriteBehindBookRepositoryTest {
+
+    @Autowired
+    private BookRepositoryImpl bookRepositoryImpl;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MeterRegistry meterRegistry;
+    private List<Object> publishedEvents;
+    private WriteBehindBookRepository writeBehindRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        publishedEvents = new ArrayList<>();
+        writeBehindRepository = writeBehind(bookRepositoryImpl);
+    }
+
+    // Long interval and large size so only the test decides when to flush
+    private WriteBehindBookRepository writeBehind(BookRepositoryImpl delegate) {
+        return new WriteBehindBookRepository(delegate, publishedEvents::add, meterRegistry, 10_000, Duration.ofHours(1));
+    }
+
+    @Test
+    void updateBookInfo_RepeatedUpdates_CoalesceIntoOneWrite() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "First", "Joshua Bloch", 2018));
+        writeBehindRepository.updateBookInfo(new Book(1L, "Second", "Joshua Bloch", 2018));
+        writeBehindRepository.updateBookFields(new Book(1L, null, "Josh Bloch", null), Set.of(BookField.AUTHOR));
+
+        assertEquals("Effective Java", storedTitle(1L));
+        assertEquals(1, writeBehindRepository.pendingUpdates());
+
+        writeBehindRepository.flush();
+
+        assertEquals("Second", storedTitle(1L));
+        assertEquals("Josh Bloch", jdbcTemplate.queryForObject("SELECT author FROM books WHERE id = 1", String.class));
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT version FROM books WHERE id = 1", Long.class));
+        assertEquals(1.0, meterRegistry.get("books.write-behind.updates").tag("result", "flushed").counter().count());
+        assertEquals(3.0, meterRegistry.get("books.write-behind.updates").tag("result", "buffered").counter().count());
+    }
+
+    @Test
+    void getBookById_BufferedUpdate_IsVisibleBeforeFlush() {
+
+        writeBehindRepository.updateBookFields(new Book(2L, "Clean Code 2nd Edition", null, null), Set.of(BookField.TITLE));
+
+        Book book = writeBehindRepository.getBookById(2L).orElseThrow();
+        List<Book> page = writeBehindRepository.getBooksAfter(1L, 10, BookFilter.NONE);
+        Book projected = writeBehindRepository.getBookById(2L, Set.of(BookField.AUTHOR)).orElseThrow();
+
+        assertEquals("Clean Code 2nd Edition", book.getTitle());
+        assertEquals("Robert Martin", book.getAuthor());
+        assertEquals("Clean Code 2nd Edition", page.get(0).getTitle());
+        assertNull(projected.getTitle());
+        assertEquals("Clean Code", storedTitle(2L));
+    }
+
+    @Test
+    void getBookById_BufferedUpdate_HasNoVersionUntilFlushed() {
+
+        writeBehindRepository.updateBookFields(new Book(2L, "Clean Code 2nd Edition", null, null), Set.of(BookField.TITLE));
+
+        assertNull(writeBehindRepository.getBookById(2L).orElseThrow().getVersion());
+        assertEquals(0L, writeBehindRepository.getBookById(1L).orElseThrow().getVersion());
+
+        writeBehindRepository.flush();
+
+        assertEquals(1L, writeBehindRepository.getBookById(2L).orElseThrow().getVersion());
+    }
+
+    @Test
+    void getBookById_BatchLandsDuringRead_ReadsAgain() {
+
+        // Given: the row is read, then the buffered update lands before the overlay looks for it
+        BookRepositoryImpl landingMidRead = spy(AopTestUtils.<BookRepositoryImpl>getUltimateTargetObject(bookRepositoryImpl));
+        WriteBehindBookRepository[] repository = new WriteBehindBookRepository[1];
+        AtomicBoolean landed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Object row = invocation.callRealMethod();
+            if (landed.compareAndSet(false, true)) {
+                repository[0].flush();
+            }
+            return row;
+        }).when(landingMidRead).getBookById(anyLong());
+        repository[0] = writeBehind(landingMidRead);
+        repository[0].updateBookFields(new Book(2L, "Clean Code 2nd Edition", null, null), Set.of(BookField.TITLE));
+
+        // When
+        Book book = repository[0].getBookById(2L).orElseThrow();
+
+        // Then
+        assertEquals("Clean Code 2nd Edition", book.getTitle());
+        assertEquals("Clean Code 2nd Edition", storedTitle(2L));
+    }
+
+    @Test
+    void getBooksAfter_FilterOnBufferedField_MatchesNewValue() {
+
+        // Given
+        writeBehindRepository.updateBookFields(new Book(2L, null, "Joshua Bloch", null), Set.of(BookField.AUTHOR));
+        writeBehindRepository.updateBookFields(new Book(1L, null, "Josh Bloch", null), Set.of(BookField.AUTHOR));
+
+        // When
+        List<Book> page = writeBehindRepository.getBooksAfter(0L, 10, new BookFilter("Joshua Bloch", null));
+
+        // Then
+        assertEquals(List.of(2L), page.stream().map(Book::getId).toList());
+        assertEquals(0, writeBehindRepository.pendingUpdates());
+    }
+
+    @Test
+    void getBooksAfter_FilterOnOtherField_KeepsBuffer() {
+
+        writeBehindRepository.updateBookFields(new Book(2L, "Clean Code 2nd Edition", null, null), Set.of(BookField.TITLE));
+
+        List<Book> page = writeBehindRepository.getBooksAfter(0L, 10, new BookFilter("Robert Martin", null));
+
+        assertEquals("Clean Code 2nd Edition", page.get(0).getTitle());
+        assertEquals(1, writeBehindRepository.pendingUpdates());
+    }
+
+    @Test
+    void getVersionById_BufferedUpdate_FlushesThatBookFirst() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "Updated", "Joshua Bloch", 2018));
+        writeBehindRepository.updateBookInfo(new Book(2L, "Updated", "Robert Martin", 2008));
+
+        assertEquals(Optional.of(1L), writeBehindRepository.getVersionById(1L));
+        assertEquals(1, writeBehindRepository.pendingUpdates());
+    }
+
+    @Test
+    void updateBookFields_ExpectedVersion_WritesSynchronously() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "Buffered", "Joshua Bloch", 2018));
+
+        Book result = writeBehindRepository.updateBookFields(new Book(1L, "Checked", null, null, 1L), Set.of(BookField.TITLE))
+                .orElseThrow();
+
+        assertEquals(2L, result.getVersion());
+        assertEquals("Checked", storedTitle(1L));
+        assertEquals(0, writeBehindRepository.pendingUpdates());
+    }
+
+    @Test
+    void updateBookInfo_NonExistingBook_ReturnsEmptyWithoutBuffering() {
+
+        assertTrue(writeBehindRepository.updateBookInfo(new Book(999L, "Title", "Author", 2018)).isEmpty());
+        assertEquals(0, writeBehindRepository.pendingUpdates());
+    }
+
+    @Test
+    void deleteBookById_BufferedUpdate_IsDropped() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "Updated", "Joshua Bloch", 2018));
+
+        assertTrue(writeBehindRepository.deleteBookById(1L));
+        assertEquals(0, writeBehindRepository.pendingUpdates());
+    }
+
+    @Test
+    void shutdown_DrainsBuffer() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "Drained", "Joshua Bloch", 2018));
+
+        writeBehindRepository.shutdown();
+
+        assertEquals("Drained", storedTitle(1L));
+    }
+
+    @Test
+    void flush_WrittenBatch_PublishesFlushedIds() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "Updated", "Joshua Bloch", 2018));
+
+        writeBehindRepository.flush();
+
+        assertEquals(List.of(new BooksFlushedEvent(List.of(1L))), publishedEvents);
+    }
+
+    @Test
+    void flush_TransientFailure_RequeuesUnderNewerUpdates() {
+
+        // Given
+        BookRepositoryImpl failingOnce = spy(AopTestUtils.<BookRepositoryImpl>getUltimateTargetObject(bookRepositoryImpl));
+        doThrow(new QueryTimeoutException("Timed out")).doCallRealMethod()
+                .when(failingOnce).updateBooks(anyList(), anySet());
+        WriteBehindBookRepository repository = writeBehind(failingOnce);
+        repository.updateBookInfo(new Book(1L, "Retried", "Joshua Bloch", 2018));
+
+        // When
+        assertThrows(QueryTimeoutException.class, repository::flush);
+        repository.updateBookFields(new Book(1L, null, "Josh Bloch", null), Set.of(BookField.AUTHOR));
+
+        // Then
+        assertEquals(1, repository.pendingUpdates());
+        assertEquals("Retried", repository.getBookById(1L).orElseThrow().getTitle());
+        assertTrue(publishedEvents.isEmpty());
+
+        repository.flush();
+
+        assertEquals("Retried", storedTitle(1L));
+        assertEquals("Josh Bloch", jdbcTemplate.queryForObject("SELECT author FROM books WHERE id = 1", String.class));
+        assertEquals(1.0, meterRegistry.get("books.write-behind.updates").tag("result", "retried").counter().count());
+    }
+
+    @Test
+    void flush_InvalidRow_DropsOnlyThatRow() {
+
+        writeBehindRepository.updateBookInfo(new Book(1L, "Valid", "Joshua Bloch", 2018));
+        writeBehindRepository.updateBookInfo(new Book(2L, "From the future", "Robert Martin", 3000));
+
+        writeBehindRepository.flush();
+
+        assertEquals("Valid", storedTitle(1L));
+        assertEquals("Clean Code", storedTitle(2L));
+        assertEquals(0, writeBehindRepository.pendingUpdates());
+        assertEquals(1.0, meterRegistry.get("books.write-behind.updates").tag("result", "failed").counter().count());
+    }
+
+    private String storedTitle(long id) {
+        return jdbcTemplate.queryForObject("SELECT title FROM books WHERE id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jefferson.books_jdbc.search;
+
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        List<Book> books = List.of(
+                new Book(1L, "The Old Man and the Sea", "Ernest Hemingway", 1952),
+                new Book(2L, "Sea of Tranquility", "Emily St. John Mandel", 2022),
+                new Book(3L, "A Farewell to Arms", "Ernest Hemingway", 1929),
+                new Book(4L, "Ernest and the Sea", "Someone Else", 2001)
+        );
+
+        when(bookRepository.streamBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            books.forEach(consumer);
+            return (long) books.size();
+        });
+
+        bookSearchIndex = new BookSearchIndex(bookRepository, true, 10_000);
+        bookSearchIndex.build();
+    }
+
+    @Test
+    void search_AllWordsRequired_ReturnsOnlyFullMatches() {
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search("hemingway sea", 0, 10);
+
+        assertArrayEquals(new long[]{1L}, hits.ids());
+        assertEquals(1, hits.totalHits());
+    }
+
+    @Test
+    void search_TitleMatchesRankAboveAuthorMatches() {
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search("Ernest", 0, 10);
+
+        assertArrayEquals(new long[]{4L, 1L, 3L}, hits.ids());
+    }
+
+    @Test
+    void search_IsCaseAndPunctuationInsensitive() {
+        assertArrayEquals(new long[]{2L}, bookSearchIndex.search("st. JOHN", 0, 10).ids());
+    }
+
+    @Test
+    void search_Page_SlicesRankedHits() {
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search("sea", 1, 2);
+
+        assertArrayEquals(new long[]{2L, 4L}, hits.ids());
+        assertEquals(3, hits.totalHits());
+    }
+
+    @Test
+    void search_UnknownWord_ReturnsNothing() {
+        assertEquals(0, bookSearchIndex.search("sea unknown", 0, 10).totalHits());
+    }
+
+    @Test
+    void onBookChanged_Update_ReplacesOldWords() {
+        bookSearchIndex.onBookChanged(BookChangedEvent.updated(null, new Book(3L, "For Whom the Bell Tolls", "Ernest Hemingway", 1940)));
+
+        assertEquals(0, bookSearchIndex.search("farewell", 0, 10).totalHits());
+        assertArrayEquals(new long[]{3L}, bookSearchIndex.search("bell", 0, 10).ids());
+    }
+
+    @Test
+    void onBookChanged_CreateAndDelete_AreVisibleImmediately() {
+        bookSearchIndex.onBookChanged(BookChangedEvent.created(new Book(5L, "Islands in the Stream", "Ernest Hemingway", 1970)));
+        bookSearchIndex.onBookChanged(BookChangedEvent.deleted(1L, null));
+
+        assertArrayEquals(new long[]{3L, 5L}, bookSearchIndex.search("hemingway", 0, 10).ids());
+        assertEquals(4, bookSearchIndex.indexedBooks());
+    }
+
+    @Test
+    void search_MoreMatchesThanCap_RanksEveryMatchAndCapsTotal() {
+        BookSearchIndex capped = new BookSearchIndex(bookRepository, true, 2);
+        capped.build();
+
+        // The title match has the highest id of the three, but still ranks first
+        BookSearchIndex.SearchHits hits = capped.search("ernest", 0, 10);
+
+        assertArrayEquals(new long[]{4L, 1L}, hits.ids());
+        assertEquals(2, hits.totalHits());
+        assertTrue(hits.totalHitsCapped());
+        assertEquals(0, capped.search("ernest", 2, 10).ids().length);
+        assertFalse(bookSearchIndex.search("ernest", 0, 10).totalHitsCapped());
+    }
+
+    @Test
+    void search_OffsetPastHits_ReturnsEmptyPage() {
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search("sea", Integer.MAX_VALUE, 10);
+
+        assertEquals(0, hits.ids().length);
+        assertEquals(3, hits.totalHits());
+    }
+
+    @Test
+    void search_Disabled_ReturnsNothing() {
+        BookSearchIndex disabled = new BookSearchIndex(bookRepository, false, 10_000);
+
+        assertEquals(0, disabled.search("sea", 0, 10).totalHits());
+    }
+}
@@ -0,0 +1,164 @@
+package com.jefferson.books_jdbc.service;
+
+import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.exception.BookNotFoundException;
+import com.jefferson.books_jdbc.repository.BookField;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookAsyncServiceTest {
+
+    @Mock
+    private BookService bookService;
+
+    private BookAsyncServiceImpl bookAsyncService;
+
+    @BeforeEach
+    void setUp() {
+        bookAsyncService = new BookAsyncServiceImpl(bookService, 1, 1, false, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookAsyncService.shutdown();
+    }
+
+    @Test
+    void getBookById_RunsOnJdbcExecutor() throws Exception {
+
+        when(bookService.getBookById(1L, BookField.ALL)).thenAnswer(invocation ->
+                new BookDto(1L, Thread.currentThread().getName(), "Author", 2000));
+
+        BookDto bookDto = bookAsyncService.getBookById(1L, BookField.ALL).get(5, TimeUnit.SECONDS);
+
+        assertTrue(bookDto.title().startsWith("book-jdbc-"));
+    }
+
+    @Test
+    void getBookById_ServiceThrows_CompletesExceptionally() {
+
+        when(bookService.getBookById(9L, BookField.ALL)).thenThrow(new BookNotFoundException("Book with id 9 not found"));
+
+        CompletableFuture<BookDto> future = bookAsyncService.getBookById(9L, BookField.ALL);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BookNotFoundException.class, exception.getCause());
+    }
+
+    @Test
+    void updateBookInfo_WithoutExpectedVersion_UsesUnconditionalUpdate() throws Exception {
+
+        BookRequest bookRequest = new BookRequest("Title", "Author", 2000);
+        when(bookService.updateBookInfo(1L, bookRequest)).thenReturn(new BookDto(1L, "Title", "Author", 2000));
+
+        bookAsyncService.updateBookInfo(1L, bookRequest, null).get(5, TimeUnit.SECONDS);
+
+        verify(bookService).updateBookInfo(1L, bookRequest);
+        verify(bookService, never()).updateBookInfo(1L, bookRequest, null);
+    }
+
+    @Test
+    void submit_QueueFull_RejectsImmediately() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.deleteBookById(1L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+
+        CompletableFuture<Boolean> running = bookAsyncService.deleteBookById(1L);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = bookAsyncService.deleteBookById(1L);
+
+        try {
+            assertThrows(RejectedExecutionException.class, () -> bookAsyncService.deleteBookById(1L));
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shutdown_RunningAndQueuedRequests_FinishFirst() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        when(bookService.deleteBookById(1L)).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(100);
+            return !Thread.currentThread().isInterrupted();
+        });
+
+        CompletableFuture<Boolean> running = bookAsyncService.deleteBookById(1L);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = bookAsyncService.deleteBookById(1L);
+
+        bookAsyncService.shutdown();
+
+        assertTrue(running.getNow(false));
+        assertTrue(queued.getNow(false));
+    }
+
+    @Test
+    void getBookById_VirtualThreads_RunsOnVirtualThread() throws Exception {
+
+        BookAsyncServiceImpl virtualService = new BookAsyncServiceImpl(bookService, 1, 1, true, Duration.ofSeconds(5));
+        when(bookService.getBookById(1L, BookField.ALL)).thenAnswer(invocation ->
+                new BookDto(1L, Thread.currentThread().getName(), String.valueOf(Thread.currentThread().isVirtual()), 2000));
+
+        try {
+            BookDto bookDto = virtualService.getBookById(1L, BookField.ALL).get(5, TimeUnit.SECONDS);
+
+            assertTrue(bookDto.title().startsWith("book-jdbc-"));
+            assertEquals("true", bookDto.author());
+        } finally {
+            virtualService.shutdown();
+        }
+    }
+
+    @Test
+    void submit_VirtualThreadsInFlightFull_RejectsUntilOneFinishes() throws Exception {
+
+        BookAsyncServiceImpl virtualService = new BookAsyncServiceImpl(bookService, 1, 1, true, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.deleteBookById(1L)).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+
+        try {
+            // Given: pool-size + queue-capacity requests in flight
+            CompletableFuture<Boolean> first = virtualService.deleteBookById(1L);
+            CompletableFuture<Boolean> second = virtualService.deleteBookById(1L);
+
+            // When
+            assertThrows(RejectedExecutionException.class, () -> virtualService.deleteBookById(1L));
+            release.countDown();
+
+            // Then: admitted again once the others finish
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+            assertTrue(virtualService.deleteBookById(1L).get(5, TimeUnit.SECONDS));
+        } finally {
+            virtualService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.jefferson.books_jdbc.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jefferson.books_jdbc.dto.BookImportSummary;
+import com.jefferson.books_jdbc.importer.BookImportFormat;
+import com.jefferson.books_jdbc.mapper.BookMapperImpl;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookImportServiceTest {
+
+    private BookImportServiceImpl bookImportService;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final List<List<Book>> insertedChunks = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        var validatorFactory = new LocalValidatorFactoryBean();
+        validatorFactory.afterPropertiesSet();
+
+        bookImportService = new BookImportServiceImpl(bookRepository, new BookMapperImpl(),
+                validatorFactory.getValidator(), new TransactionTemplate(transactionManager), new ObjectMapper(),
+                event -> { }, 2, 1, 1);
+
+        lenient().when(bookRepository.createBooks(anyList())).thenAnswer(invocation -> {
+            List<Book> books = assignIds(invocation.getArgument(0));
+            insertedChunks.add(List.copyOf(books));
+            return books;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookImportService.shutdown();
+    }
+
+    @Test
+    void importBooks_Ndjson_AcceptsValidAndReportsRejectedLines() {
+        String input = """
+                {"title":"Effective Java","author":"Joshua Bloch","publicationYear":2018}
+                {"title":"","author":"Nobody","publicationYear":2000}
+                not json
+                {"title":"Clean Code","author":"Robert Martin","publicationYear":2008}
+                {"title":"Refactoring","author":"Martin Fowler","publicationYear":1999}
+                """;
+
+        BookImportSummary summary = bookImportService.importBooks(stream(input), BookImportFormat.NDJSON);
+
+        assertEquals(3, summary.accepted());
+        assertEquals(2, summary.rejected());
+        assertEquals(1L, summary.rejectReasons().get("Book request: title is null or empty"));
+        assertEquals(1L, summary.rejectReasons().get("Malformed JSON record"));
+        assertEquals(List.of(2L, 3L), summary.sampleRejections().stream().map(r -> r.lineNumber()).toList());
+        assertEquals(List.of(2, 1), insertedChunks.stream().map(List::size).toList());
+    }
+
+    @Test
+    void importBooks_Csv_ParsesQuotedFieldsAndSkipsHeader() {
+        String input = """
+                title,author,publication_year
+                "Patterns, of Enterprise",Martin Fowler,2002
+                Domain-Driven Design,Eric Evans,not-a-year
+                "Unclosed,Someone,2000
+                """;
+
+        BookImportSummary summary = bookImportService.importBooks(stream(input), BookImportFormat.CSV);
+
+        assertEquals(1, summary.accepted());
+        assertEquals(2, summary.rejected());
+        assertEquals("Patterns, of Enterprise", insertedChunks.get(0).get(0).getTitle());
+        assertEquals(1L, summary.rejectReasons().get("Invalid publication year"));
+        assertEquals(1L, summary.rejectReasons().get("Malformed CSV record"));
+    }
+
+    @Test
+    void importBooks_FailingChunk_RejectsOnlyOffendingRows() {
+        when(bookRepository.createBooks(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            if (books.stream().anyMatch(book -> book.getTitle().equals("B"))) {
+                throw new DataIntegrityViolationException("boom");
+            }
+            return assignIds(books);
+        });
+
+        String input = """
+                {"title":"A","author":"Author","publicationYear":2001}
+                {"title":"B","author":"Author","publicationYear":2002}
+                {"title":"C","author":"Author","publicationYear":2003}
+                """;
+
+        BookImportSummary summary = bookImportService.importBooks(stream(input), BookImportFormat.NDJSON);
+
+        assertEquals(2, summary.accepted());
+        assertEquals(1, summary.rejected());
+        assertEquals(1L, summary.rejectReasons().get("Database rejected the row"));
+        assertEquals(2L, summary.sampleRejections().get(0).lineNumber());
+        // the failed chunk, its two rows one at a time, then the last chunk
+        verify(bookRepository, times(4)).createBooks(anyList());
+    }
+
+    @Test
+    void importBooks_FuturePublicationYear_RejectsLineBeforeInsert() {
+        String input = """
+                {"title":"A","author":"Author","publicationYear":2001}
+                {"title":"B","author":"Author","publicationYear":%d}
+                """.formatted(Year.now().getValue() + 1);
+
+        BookImportSummary summary = bookImportService.importBooks(stream(input), BookImportFormat.NDJSON);
+
+        assertEquals(1, summary.accepted());
+        assertEquals(1L, summary.rejectReasons().get("Book import: publicationYear is in the future"));
+        assertEquals(List.of(1), insertedChunks.stream().map(List::size).toList());
+    }
+
+    @Test
+    void importBooks_WriterFails_StopsReadingInput() {
+        when(bookRepository.createBooks(anyList())).thenThrow(new IllegalStateException("writer down"));
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            input.append("{\"title\":\"Book ").append(i).append("\",\"author\":\"Author\",\"publicationYear\":2000}\n");
+        }
+        ByteArrayInputStream upload = stream(input.toString());
+
+        assertThrows(IllegalStateException.class, () -> bookImportService.importBooks(upload, BookImportFormat.NDJSON));
+
+        assertTrue(upload.available() > 0);
+    }
+
+    @Test
+    void importBooks_ManyChunks_WritesEveryChunk() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1_001; i++) {
+            input.append("{\"title\":\"Book ").append(i).append("\",\"author\":\"Author\",\"publicationYear\":2000}\n");
+        }
+
+        BookImportSummary summary = bookImportService.importBooks(stream(input.toString()), BookImportFormat.NDJSON);
+
+        assertEquals(1_001, summary.accepted());
+        assertEquals(501, insertedChunks.size());
+    }
+
+    private static ByteArrayInputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Book> assignIds(List<Book> books) {
+        books.forEach(book -> book.setId(nextId.incrementAndGet()));
+        return books;
+    }
+}
@@ -1,11 +1,21 @@
 package com.jefferson.books_jdbc.service;
 
+import com.jefferson.books_jdbc.cache.BookCache;
+import com.jefferson.books_jdbc.cache.BookIdFilter;
 import com.jefferson.books_jdbc.dto.BookDto;
+import com.jefferson.books_jdbc.dto.BookPage;
+import com.jefferson.books_jdbc.dto.BookPatchRequest;
 import com.jefferson.books_jdbc.dto.BookRequest;
+import com.jefferson.books_jdbc.dto.BookSearchResponse;
+import com.jefferson.books_jdbc.dto.BooksByIdsResponse;
+import com.jefferson.books_jdbc.event.BookChangedEvent;
 import com.jefferson.books_jdbc.exception.BookNotFoundException;
 import com.jefferson.books_jdbc.mapper.BookMapper;
 import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookField;
+import com.jefferson.books_jdbc.repository.BookFilter;
 import com.jefferson.books_jdbc.repository.BookRepository;
+import com.jefferson.books_jdbc.search.BookSearchIndex;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,14 +23,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +52,7 @@ import static org.mockito.Mockito.when;
 public class BookServiceTest {
 
     private BookService bookService;
+    private BookCache bookCache;
 
     @Mock
     private BookRepository bookRepository;
@@ -35,6 +60,12 @@ public class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private Book book;
     private BookDto bookDto;
     private BookRequest bookRequest;
@@ -42,18 +73,25 @@ public class BookServiceTest {
     @BeforeEach
     void initTests() {
 
-        bookService = new BookServiceImpl(bookRepository, bookMapper);
+        bookCache = new BookCache(true, 100, Duration.ofMinutes(1));
+        bookService = validatedService(new BookIdFilter(bookRepository, false, 100, 0.01, Duration.ZERO));
+    }
+
+    private BookService validatedService(BookIdFilter bookIdFilter) {
+
+        BookService service = new BookServiceImpl(bookRepository, bookMapper, bookCache, bookSearchIndex,
+                bookIdFilter, eventPublisher);
 
         var validatorFactory = new LocalValidatorFactoryBean();
         validatorFactory.afterPropertiesSet();
 
         var validationInterceptor = new MethodValidationInterceptor(validatorFactory.getValidator());
 
-        var proxyFactory = new ProxyFactory(bookService);
+        var proxyFactory = new ProxyFactory(service);
 
         proxyFactory.addAdvice(validationInterceptor);
 
-        bookService = (BookService) proxyFactory.getProxy();
+        return (BookService) proxyFactory.getProxy();
     }
 
     @BeforeEach
@@ -79,6 +117,80 @@ public class BookServiceTest {
         verify(bookMapper).toDto(book);
     }
 
+    @Test
+    void getBookById_ConcurrentMisses_ShareOneQuery() throws Exception {
+        // Given
+        int callers = 16;
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.getBookById(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(book);
+        });
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            // When: every caller misses while the first one's query is still running
+            List<Future<BookDto>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> bookService.getBookById(1L)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (bookCache.coalescedLoads() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // Then
+            for (Future<BookDto> result : results) {
+                assertEquals(bookDto, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(bookRepository, times(1)).getBookById(1L);
+        assertEquals(callers - 1, bookCache.coalescedLoads());
+    }
+
+    @Test
+    void getBookById_RepeatedCalls_HitsRepositoryOnce() {
+        // Given
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        bookService.getBookById(1L);
+        BookDto result = bookService.getBookById(1L);
+
+        // Then
+        assertEquals(bookDto, result);
+        verify(bookRepository, times(1)).getBookById(1L);
+        verify(bookMapper, times(1)).toDto(book);
+    }
+
+    @Test
+    void getBookById_AfterUpdate_ReloadsFromRepository() {
+        // Given
+        Book updatedBook = new Book(1L, "Updated Book", "Updated Author", 2025);
+        BookDto updatedBookDto = new BookDto(1L, "Updated Book", "Updated Author", 2025);
+
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book), Optional.of(updatedBook));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        when(bookMapper.toEntity(bookRequest)).thenReturn(updatedBook);
+        when(bookRepository.updateBookInfo(updatedBook)).thenReturn(Optional.of(updatedBook));
+        when(bookMapper.toDto(updatedBook)).thenReturn(updatedBookDto);
+
+        // When
+        bookService.getBookById(1L);
+        bookService.updateBookInfo(1L, bookRequest);
+        BookDto result = bookService.getBookById(1L);
+
+        // Then
+        assertEquals(updatedBookDto, result);
+        verify(bookRepository, times(2)).getBookById(1L);
+    }
+
     @Test
     void getBookById_NonExistingId_ThrowsBookNotFoundException() {
         // Given
@@ -90,6 +202,66 @@ public class BookServiceTest {
         );
     }
 
+    @Test
+    void getBookById_IdRejectedByFilter_ThrowsWithoutQuery() {
+        // Given
+        stubStreamedBooks(book);
+        BookIdFilter bookIdFilter = new BookIdFilter(bookRepository, true, 100, 0.01, Duration.ZERO);
+        bookIdFilter.rebuild();
+        BookService filteredService = validatedService(bookIdFilter);
+
+        // When & Then
+        assertThrows(BookNotFoundException.class, () -> filteredService.getBookById(999L));
+        assertThrows(BookNotFoundException.class, () -> filteredService.getBookVersion(999L));
+        verify(bookRepository, never()).getBookById(999L);
+        verify(bookRepository, never()).getVersionById(999L);
+    }
+
+    @Test
+    void getBooksByIds_IdsRejectedByFilter_AreNotQueried() {
+        // Given
+        stubStreamedBooks(book);
+        BookIdFilter bookIdFilter = new BookIdFilter(bookRepository, true, 100, 0.01, Duration.ZERO);
+        bookIdFilter.rebuild();
+        BookService filteredService = validatedService(bookIdFilter);
+
+        when(bookRepository.getBooksByIds(List.of(1L))).thenReturn(List.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        BooksByIdsResponse result = filteredService.getBooksByIds(List.of(1L, 999L));
+
+        // Then
+        assertEquals(List.of(bookDto), result.books());
+        assertEquals(List.of(999L), result.missingIds());
+        verify(bookRepository).getBooksByIds(List.of(1L));
+    }
+
+    @Test
+    void getBookById_DeletedIdPassesFilter_CountsFalsePositive() {
+        // Given
+        stubStreamedBooks(book);
+        BookIdFilter bookIdFilter = new BookIdFilter(bookRepository, true, 100, 0.01, Duration.ZERO);
+        bookIdFilter.rebuild();
+        BookService filteredService = validatedService(bookIdFilter);
+
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(BookNotFoundException.class, () -> filteredService.getBookById(1L));
+        assertEquals(1.0, bookIdFilter.observedFalsePositiveRate());
+    }
+
+    private void stubStreamedBooks(Book... books) {
+        when(bookRepository.streamBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            for (Book streamed : books) {
+                consumer.accept(streamed);
+            }
+            return (long) books.length;
+        });
+    }
+
     @Test
     void getBookById_NullId_ThrowsConstraintViolation() {
         assertThrows(ConstraintViolationException.class, () ->
@@ -104,6 +276,205 @@ public class BookServiceTest {
         );
     }
 
+    @Test
+    void getBooksByIds_MixedIds_KeepsRequestOrderAndReportsMissing() {
+        // Given
+        Book secondBook = new Book(2L, "Second Book", "Second Author", 2023);
+        BookDto secondBookDto = new BookDto(2L, "Second Book", "Second Author", 2023);
+
+        when(bookRepository.getBooksByIds(any())).thenReturn(List.of(book, secondBook));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        when(bookMapper.toDto(secondBook)).thenReturn(secondBookDto);
+
+        // When
+        BooksByIdsResponse result = bookService.getBooksByIds(List.of(2L, 999L, 1L, 2L));
+
+        // Then
+        assertEquals(List.of(secondBookDto, bookDto), result.books());
+        assertEquals(List.of(999L), result.missingIds());
+        verify(bookRepository).getBooksByIds(argThat(ids -> ids.size() == 3));
+    }
+
+    @Test
+    void getBookById_Fields_ReadsOnlyRequestedColumns() {
+        // Given
+        Set<BookField> fields = Set.of(BookField.ID, BookField.TITLE);
+        Book partialBook = new Book(1L, "Test Book", null, null);
+        BookDto partialDto = new BookDto(1L, "Test Book", null, null);
+        when(bookRepository.getBookById(1L, fields)).thenReturn(Optional.of(partialBook));
+        when(bookMapper.toDto(partialBook)).thenReturn(partialDto);
+
+        // When
+        BookDto result = bookService.getBookById(1L, fields);
+
+        // Then
+        assertEquals(partialDto, result);
+        verify(bookRepository, never()).getBookById(1L);
+    }
+
+    @Test
+    void getBookById_FieldsWithCachedBook_TrimsCachedCopy() {
+        // Given
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        bookService.getBookById(1L);
+
+        // When
+        BookDto result = bookService.getBookById(1L, Set.of(BookField.ID, BookField.AUTHOR));
+
+        // Then
+        assertEquals(new BookDto(1L, null, "Test Author", null), result);
+        verify(bookRepository, never()).getBookById(any(), any());
+    }
+
+    @Test
+    void getBooksByIds_Fields_DoesNotCachePartialBooks() {
+        // Given
+        Set<BookField> fields = Set.of(BookField.ID, BookField.TITLE);
+        Book partialBook = new Book(1L, "Test Book", null, null);
+        when(bookRepository.getBooksByIds(List.of(1L), fields)).thenReturn(List.of(partialBook));
+        when(bookMapper.toDto(partialBook)).thenReturn(new BookDto(1L, "Test Book", null, null));
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        bookService.getBooksByIds(List.of(1L), fields);
+        BookDto result = bookService.getBookById(1L);
+
+        // Then
+        assertEquals(bookDto, result);
+    }
+
+    @Test
+    void getBookById_EmptyFields_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.getBookById(1L, Set.of())
+        );
+    }
+
+    @Test
+    void getBooksByIds_NegativeId_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.getBooksByIds(List.of(1L, -1L))
+        );
+    }
+
+    @Test
+    void getBooks_MoreRowsThanLimit_ReturnsNextCursor() {
+        // Given
+        Book secondBook = new Book(2L, "Second Book", "Second Author", 2023);
+        BookFilter filter = new BookFilter("Test Author", null);
+
+        when(bookRepository.getBooksAfter(0L, 2, filter)).thenReturn(List.of(book, secondBook));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        BookPage result = bookService.getBooks(0L, 1, "Test Author", null);
+
+        // Then
+        assertEquals(List.of(bookDto), result.books());
+        assertEquals(1L, result.nextCursor());
+    }
+
+    @Test
+    void getBooks_LastPage_ReturnsNullCursor() {
+        // Given
+        when(bookRepository.getBooksAfter(1L, 11, BookFilter.NONE)).thenReturn(List.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        BookPage result = bookService.getBooks(1L, 10, null, null);
+
+        // Then
+        assertEquals(List.of(bookDto), result.books());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getBooks_LimitTooLarge_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.getBooks(null, 5_000, null, null)
+        );
+    }
+
+    @Test
+    void searchBooks_RankedHits_KeepsIndexOrder() {
+        // Given
+        Book otherBook = new Book(2L, "Other Book", "Test Author", 2020);
+        BookDto otherBookDto = new BookDto(2L, "Other Book", "Test Author", 2020);
+        when(bookSearchIndex.search("test", 0, 10)).thenReturn(new BookSearchIndex.SearchHits(new long[]{2L, 1L}, 2, false));
+        when(bookRepository.getBooksByIds(List.of(2L, 1L))).thenReturn(List.of(book, otherBook));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        when(bookMapper.toDto(otherBook)).thenReturn(otherBookDto);
+
+        // When
+        BookSearchResponse result = bookService.searchBooks("test", 0, 10);
+
+        // Then
+        assertEquals(List.of(otherBookDto, bookDto), result.books());
+        assertEquals(2, result.totalHits());
+    }
+
+    @Test
+    void searchBooks_HugePage_ClampsOffsetInsteadOfOverflowing() {
+        // Given
+        when(bookSearchIndex.search("test", Integer.MAX_VALUE, 100)).thenReturn(new BookSearchIndex.SearchHits(new long[0], 2, false));
+
+        // When
+        BookSearchResponse result = bookService.searchBooks("test", 50_000_000, 100);
+
+        // Then
+        assertTrue(result.books().isEmpty());
+        assertEquals(2, result.totalHits());
+    }
+
+    @Test
+    void searchBooks_NoHits_SkipsRepository() {
+        // Given
+        when(bookSearchIndex.search("missing", 20, 10)).thenReturn(new BookSearchIndex.SearchHits(new long[0], 0, false));
+
+        // When
+        BookSearchResponse result = bookService.searchBooks("missing", 2, 10);
+
+        // Then
+        assertTrue(result.books().isEmpty());
+        assertEquals(2, result.page());
+        verify(bookRepository, never()).getBooksByIds(any());
+    }
+
+    @Test
+    void searchBooks_BlankQuery_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.searchBooks(" ", 0, 10)
+        );
+    }
+
+    @Test
+    void searchBooks_PageSizeTooLarge_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.searchBooks("test", 0, 101)
+        );
+    }
+
+    @Test
+    void exportBooks_MapsEveryStreamedBook() {
+        // Given
+        when(bookRepository.streamBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(book);
+            return 1L;
+        });
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        List<BookDto> exported = new ArrayList<>();
+
+        // When
+        long count = bookService.exportBooks(exported::add);
+
+        // Then
+        assertEquals(1L, count);
+        assertEquals(List.of(bookDto), exported);
+    }
+
     @Test
     void createNewBook_ValidRequest_ReturnsBookDto() {
         // Given
@@ -158,6 +529,109 @@ public class BookServiceTest {
         verify(bookRepository).updateBookInfo(argThat(b -> b.getId().equals(1L)));
     }
 
+    @Test
+    void updateBookInfo_ExpectedVersion_PassesVersionToRepository() {
+        // Given
+        when(bookMapper.toEntity(bookRequest)).thenReturn(book);
+        when(bookRepository.updateBookInfo(book)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        bookService.updateBookInfo(1L, bookRequest, 3L);
+
+        // Then
+        verify(bookRepository).updateBookInfo(argThat(updated -> updated.getVersion() == 3L));
+    }
+
+    @Test
+    void getBookVersion_CachedBook_SkipsRepository() {
+        // Given
+        BookDto versionedDto = new BookDto(1L, "Test Book", "Test Author", 2024, 4L);
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(versionedDto);
+        bookService.getBookById(1L);
+
+        // When
+        long version = bookService.getBookVersion(1L);
+
+        // Then
+        assertEquals(4L, version);
+        verify(bookRepository, never()).getVersionById(any());
+    }
+
+    @Test
+    void getBookVersion_UncachedBook_ReadsVersionOnly() {
+        // Given
+        when(bookRepository.getVersionById(1L)).thenReturn(Optional.of(7L));
+
+        // When & Then
+        assertEquals(7L, bookService.getBookVersion(1L));
+        verify(bookRepository, never()).getBookById(any());
+    }
+
+    @Test
+    void getBookVersion_NonExistingId_ThrowsBookNotFoundException() {
+        when(bookRepository.getVersionById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookVersion(999L));
+    }
+
+    @Test
+    void patchBook_ChangedTitle_WritesOnlyTitle() {
+        // Given
+        Book patchedBook = new Book(1L, "New Title", "Test Author", 2024, 1L);
+        BookDto patchedDto = new BookDto(1L, "New Title", "Test Author", 2024, 1L);
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        when(bookRepository.updateBookFields(any(), any())).thenReturn(Optional.of(patchedBook));
+        when(bookMapper.toDto(patchedBook)).thenReturn(patchedDto);
+
+        // When
+        BookDto result = bookService.patchBook(1L, new BookPatchRequest("New Title", "Test Author", null), null);
+
+        // Then
+        assertEquals(patchedDto, result);
+        verify(bookRepository).updateBookFields(
+                argThat(patch -> patch.getTitle().equals("New Title") && patch.getVersion() == null),
+                argThat(fields -> fields.equals(Set.of(BookField.TITLE))));
+        verify(eventPublisher).publishEvent(argThat((BookChangedEvent event) -> event.current() == patchedBook
+                && event.previous().getTitle().equals("Test Book")));
+    }
+
+    @Test
+    void patchBook_NothingChanged_SkipsWrite() {
+        // Given
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        // When
+        BookDto result = bookService.patchBook(1L, new BookPatchRequest("Test Book", null, 2024), null);
+
+        // Then
+        assertEquals(bookDto, result);
+        verify(bookRepository, never()).updateBookFields(any(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void patchBook_StaleExpectedVersion_ThrowsOptimisticLockingFailure() {
+        // Given
+        when(bookRepository.getBookById(1L)).thenReturn(Optional.of(book));
+        when(bookMapper.toDto(book)).thenReturn(new BookDto(1L, "Test Book", "Test Author", 2024, 5L));
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                bookService.patchBook(1L, new BookPatchRequest("New Title", null, null), 4L));
+        verify(bookRepository, never()).updateBookFields(any(), any());
+    }
+
+    @Test
+    void patchBook_BlankTitle_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.patchBook(1L, new BookPatchRequest(" ", null, null), null)
+        );
+    }
+
     @Test
     void updateBookInfo_NonExistingId_ThrowsBookNotFoundException() {
         // Given
@@ -197,6 +671,9 @@ public class BookServiceTest {
     @Test
     void deleteBookById_ExistingId_ReturnsTrue() {
         // Given
+        Book stored = new Book(1L, null, "Test Author", 2024, null);
+        when(bookRepository.getBookById(1L, Set.of(BookField.AUTHOR, BookField.PUBLICATION_YEAR)))
+                .thenReturn(Optional.of(stored));
         when(bookRepository.deleteBookById(1L)).thenReturn(true);
 
         // When
@@ -205,6 +682,20 @@ public class BookServiceTest {
         // Then
         assertTrue(result);
         verify(bookRepository).deleteBookById(1L);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(1L, stored));
+    }
+
+    @Test
+    void deleteBookById_NonExistingId_PublishesNoEvent() {
+        // Given
+        when(bookRepository.deleteBookById(1L)).thenReturn(false);
+
+        // When
+        boolean result = bookService.deleteBookById(1L);
+
+        // Then
+        assertFalse(result);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
@@ -240,4 +731,44 @@ public class BookServiceTest {
 
         assertTrue(exception.getMessage().contains("Book service: book request mustn't be null"));
     }
+
+    @Test
+    void createNewBooks_ValidRequests_ReturnsBookDtos() {
+        // Given
+        Book secondBook = new Book(2L, "Second Book", "Second Author", 2023);
+        BookDto secondBookDto = new BookDto(2L, "Second Book", "Second Author", 2023);
+        BookRequest secondRequest = new BookRequest("Second Book", "Second Author", 2023);
+
+        when(bookMapper.toEntity(bookRequest)).thenReturn(book);
+        when(bookMapper.toEntity(secondRequest)).thenReturn(secondBook);
+        when(bookRepository.createBooks(List.of(book, secondBook))).thenReturn(List.of(book, secondBook));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        when(bookMapper.toDto(secondBook)).thenReturn(secondBookDto);
+
+        // When
+        List<BookDto> result = bookService.createNewBooks(List.of(bookRequest, secondRequest));
+
+        // Then
+        assertEquals(List.of(bookDto, secondBookDto), result);
+        verify(bookRepository).createBooks(List.of(book, secondBook));
+    }
+
+    @Test
+    void createNewBooks_EmptyList_ThrowsConstraintViolation() {
+        assertThrows(ConstraintViolationException.class, () ->
+                bookService.createNewBooks(List.of())
+        );
+    }
+
+    @Test
+    void createNewBooks_InvalidItem_ReportsItemIndex() {
+        BookRequest invalidRequest = new BookRequest("", "Author", 2020);
+
+        ConstraintViolationException exception = assertThrows(ConstraintViolationException.class, () ->
+                bookService.createNewBooks(List.of(bookRequest, invalidRequest))
+        );
+
+        assertTrue(exception.getConstraintViolations().stream()
+                .anyMatch(violation -> violation.getPropertyPath().toString().endsWith("[1].title")));
+    }
 }
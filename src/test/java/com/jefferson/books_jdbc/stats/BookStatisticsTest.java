@@ -0,0 +1,156 @@
+package com.jefferson.books_jdbc.stats;
+
+import com.jefferson.books_jdbc.dto.BookStatsVerification;
+import com.jefferson.books_jdbc.dto.YearBookCount;
+import com.jefferson.books_jdbc.event.BookChangedEvent;
+import com.jefferson.books_jdbc.model.Book;
+import com.jefferson.books_jdbc.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookStatisticsTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private final List<Book> table = new ArrayList<>();
+    private BookStatistics bookStatistics;
+
+    @BeforeEach
+    void setUp() {
+        table.add(new Book(1L, "The Old Man and the Sea", "Ernest Hemingway", 1952));
+        table.add(new Book(2L, "A Farewell to Arms", "Ernest Hemingway", 1929));
+        table.add(new Book(3L, "Sea of Tranquility", "Emily St. John Mandel", 2022));
+
+        when(bookRepository.streamBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            List.copyOf(table).forEach(consumer);
+            return (long) table.size();
+        });
+
+        bookStatistics = new BookStatistics(bookRepository, true, Duration.ZERO);
+        bookStatistics.verify();
+    }
+
+    @Test
+    void verify_FirstRun_BuildsCountsWithoutReportingDrift() {
+
+        assertTrue(bookStatistics.isReady());
+        assertEquals(3, bookStatistics.summary().totalBooks());
+        assertEquals(2, bookStatistics.countByAuthor("Ernest Hemingway"));
+        assertEquals(1, bookStatistics.countByYear(2022));
+        assertEquals(List.of(new YearBookCount(1929, 1), new YearBookCount(1952, 1), new YearBookCount(2022, 1)),
+                bookStatistics.countsByYear());
+    }
+
+    @Test
+    void onBookChanged_CreateUpdateDelete_AppliesDeltas() {
+
+        Book created = new Book(4L, "For Whom the Bell Tolls", "Ernest Hemingway", 1940);
+        bookStatistics.onBookChanged(BookChangedEvent.created(created));
+        assertEquals(3, bookStatistics.countByAuthor("Ernest Hemingway"));
+
+        // Moves the book to another author and year
+        Book updated = new Book(4L, "Station Eleven", "Emily St. John Mandel", 2014);
+        bookStatistics.onBookChanged(BookChangedEvent.updated(created, updated));
+        assertEquals(2, bookStatistics.countByAuthor("Ernest Hemingway"));
+        assertEquals(2, bookStatistics.countByAuthor("Emily St. John Mandel"));
+        assertEquals(0, bookStatistics.countByYear(1940));
+        assertEquals(1, bookStatistics.countByYear(2014));
+
+        bookStatistics.onBookChanged(BookChangedEvent.deleted(4L, updated));
+        assertEquals(1, bookStatistics.countByAuthor("Emily St. John Mandel"));
+        assertEquals(0, bookStatistics.countByYear(2014));
+        assertEquals(3, bookStatistics.summary().totalBooks());
+    }
+
+    @Test
+    void onBookChanged_UnknownPreviousState_KeepsBucketsUntilRecount() {
+
+        // An update that cannot say what it replaced leaves the buckets alone; a delete still lowers the total
+        bookStatistics.onBookChanged(BookChangedEvent.updated(null, new Book(1L, "Station Eleven", "Emily St. John Mandel", 2014)));
+        bookStatistics.onBookChanged(BookChangedEvent.deleted(2L, null));
+
+        assertEquals(2, bookStatistics.countByAuthor("Ernest Hemingway"));
+        assertEquals(0, bookStatistics.countByYear(2014));
+        assertEquals(2, bookStatistics.summary().totalBooks());
+    }
+
+    @Test
+    void verify_ChangesDuringRecount_KeepsLiveCountsOfTouchedBuckets() {
+
+        // Given: writes land after the stream read book 1 but before it read the rest
+        Book moved = new Book(1L, "Station Eleven", "Emily St. John Mandel", 2014);
+        Book created = new Book(4L, "For Whom the Bell Tolls", "Ernest Hemingway", 1940);
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(table.get(0));
+            bookStatistics.onBookChanged(BookChangedEvent.updated(table.get(0), moved));
+            bookStatistics.onBookChanged(BookChangedEvent.created(created));
+            bookStatistics.onBookChanged(BookChangedEvent.deleted(3L, table.get(2)));
+            consumer.accept(table.get(1));
+            consumer.accept(table.get(2));
+            consumer.accept(created);
+            return 4L;
+        }).when(bookRepository).streamBooks(any());
+
+        // When
+        BookStatsVerification verification = bookStatistics.verify();
+
+        // Then
+        assertEquals(0, verification.booksDrift());
+        assertTrue(verification.authorDrift().isEmpty());
+        assertTrue(verification.yearDrift().isEmpty());
+        assertEquals(3, bookStatistics.summary().totalBooks());
+        assertEquals(2, bookStatistics.countByAuthor("Ernest Hemingway"));
+        assertEquals(1, bookStatistics.countByAuthor("Emily St. John Mandel"));
+        assertEquals(List.of(new YearBookCount(1929, 1), new YearBookCount(1940, 1), new YearBookCount(2014, 1)),
+                bookStatistics.countsByYear());
+    }
+
+    @Test
+    void verify_MissedChange_ReportsDriftAndRepairs() {
+
+        // A row written without an event, e.g. by a bulk SQL fix, is invisible to the deltas
+        table.add(new Book(4L, "For Whom the Bell Tolls", "Ernest Hemingway", 1940));
+        table.removeIf(book -> book.getId() == 3L);
+
+        BookStatsVerification verification = bookStatistics.verify();
+
+        assertEquals(0, verification.booksDrift());
+        assertEquals(Map.of("Ernest Hemingway", 1L, "Emily St. John Mandel", -1L), verification.authorDrift());
+        assertEquals(Map.of(1940, 1L, 2022, -1L), verification.yearDrift());
+        assertEquals(3, bookStatistics.countByAuthor("Ernest Hemingway"));
+        assertEquals(0, bookStatistics.countByAuthor("Emily St. John Mandel"));
+    }
+
+    @Test
+    void verify_NoMissedChanges_ReportsNoDrift() {
+
+        Book book = new Book(4L, "For Whom the Bell Tolls", "Ernest Hemingway", 1940);
+        table.add(book);
+        bookStatistics.onBookChanged(BookChangedEvent.created(book));
+
+        BookStatsVerification verification = bookStatistics.verify();
+
+        assertEquals(4, verification.booksCounted());
+        assertEquals(0, verification.booksDrift());
+        assertTrue(verification.authorDrift().isEmpty());
+        assertTrue(verification.yearDrift().isEmpty());
+    }
+}
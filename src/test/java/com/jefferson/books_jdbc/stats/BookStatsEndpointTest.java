@@ -0,0 +1,33 @@
+package com.jefferson.books_jdbc.stats;
+
+import com.jefferson.books_jdbc.dto.BookStatsVerification;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookStatsEndpointTest {
+
+    @Mock
+    private BookStatistics bookStatistics;
+
+    @InjectMocks
+    private BookStatsEndpoint bookStatsEndpoint;
+
+    @Test
+    void verify_ReturnsDrift() {
+        // Given
+        BookStatsVerification verification = new BookStatsVerification(3, 0, Map.of("Ernest Hemingway", 1L), Map.of(), 5);
+        when(bookStatistics.verify()).thenReturn(verification);
+
+        // When & Then
+        assertEquals(verification, bookStatsEndpoint.verify());
+    }
+}